@@ -0,0 +1,132 @@
+package se.mickelus.tetra.benchmark;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.registry.Bootstrap;
+import se.mickelus.tetra.ConfigHandler;
+import se.mickelus.tetra.TetraMod;
+import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.data.DataStore;
+import se.mickelus.tetra.data.DataSyncCodec;
+import se.mickelus.tetra.items.ItemModular;
+import se.mickelus.tetra.items.duplex_tool.ItemDuplexToolModular;
+import se.mickelus.tetra.items.sword.ItemSwordModular;
+import se.mickelus.tetra.module.ItemModule;
+import se.mickelus.tetra.module.ItemModuleMajor;
+import se.mickelus.tetra.module.ItemUpgradeRegistry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Sets up just enough of the game and the mod to work with modular items outside of a running game: vanilla registries,
+ * default config values, the upgrade registry, modular items and data read from the resources directory. Set up once per
+ * benchmark fork.
+ */
+public class BenchmarkEnvironment {
+
+    private static final DataStore[] dataStores = new DataStore[] { DataManager.moduleData, DataManager.improvementData,
+            DataManager.enchantmentData, DataManager.tweakData, DataManager.synergyData, DataManager.replacementData };
+
+    private static BenchmarkEnvironment instance;
+
+    public final ItemSwordModular sword;
+    public final ItemDuplexToolModular duplexTool;
+
+    private BenchmarkEnvironment() {
+        Bootstrap.register();
+        ConfigHandler.spec.setConfig(CommentedConfig.inMemory());
+
+        new DataManager();
+        new ItemUpgradeRegistry();
+
+        sword = new ItemSwordModular();
+        duplexTool = new ItemDuplexToolModular();
+        sword.init(null);
+        duplexTool.init(null);
+
+        Path dataDirectory = Paths.get(System.getProperty("tetra.dataDirectory", "src/main/resources/data/tetra"));
+        for (DataStore dataStore : dataStores) {
+            loadData(dataStore, readData(dataDirectory.resolve(dataStore.getDirectory())));
+        }
+    }
+
+    /**
+     * Loads data the same way as when it's synced to a client, but synchronously rather than through the client sync queue.
+     */
+    @SuppressWarnings("unchecked")
+    private static void loadData(DataStore dataStore, Map<ResourceLocation, JsonElement> data) {
+        byte[] serialized = DataSyncCodec.serialize(data);
+        dataStore.applySynced(dataStore.prepareSynced(DataSyncCodec.deserialize(serialized)), DataSyncCodec.hash(serialized));
+    }
+
+    public static synchronized BenchmarkEnvironment get() {
+        if (instance == null) {
+            instance = new BenchmarkEnvironment();
+        }
+
+        return instance;
+    }
+
+    private static Map<ResourceLocation, JsonElement> readData(Path directory) {
+        Map<ResourceLocation, JsonElement> result = new TreeMap<>();
+        if (!Files.isDirectory(directory)) {
+            return result;
+        }
+
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.filter(path -> path.toString().endsWith(".json"))
+                    .forEach(path -> {
+                        String name = directory.relativize(path).toString().replace('\\', '/');
+                        name = name.substring(0, name.length() - ".json".length());
+                        try {
+                            result.put(new ResourceLocation(TetraMod.MOD_ID, name),
+                                    new JsonParser().parse(new String(Files.readAllBytes(path), StandardCharsets.UTF_8)));
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return result;
+    }
+
+    /**
+     * Builds a modular stack from pairs of module keys and variant keys.
+     */
+    public static ItemStack createStack(ItemModular item, String... moduleVariants) {
+        ItemStack itemStack = new ItemStack(item);
+        for (int i = 0; i < moduleVariants.length; i += 2) {
+            ItemModule module = ItemUpgradeRegistry.instance.getModule(moduleVariants[i]);
+            if (module == null) {
+                throw new IllegalArgumentException("Unknown module: " + moduleVariants[i]);
+            }
+
+            module.addModule(itemStack, moduleVariants[i + 1], null);
+        }
+
+        return itemStack;
+    }
+
+    /**
+     * Adds an improvement to the module in the given slot, used to make sure stacks exercise the improvement paths.
+     */
+    public static void addImprovement(ItemStack itemStack, String slot, String improvement, int level) {
+        ItemModule module = ((ItemModular) itemStack.getItem()).getModuleFromSlot(itemStack, slot);
+        if (module instanceof ItemModuleMajor) {
+            ((ItemModuleMajor) module).addImprovement(itemStack, improvement, level);
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package se.mickelus.tetra.benchmark;
+
+import net.minecraft.block.BlockState;
+import net.minecraft.block.Blocks;
+import net.minecraft.inventory.EquipmentSlotType;
+import net.minecraft.item.ItemStack;
+import net.minecraft.item.Items;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import se.mickelus.tetra.capabilities.Capability;
+import se.mickelus.tetra.items.ItemModularView;
+import se.mickelus.tetra.items.ItemStatSheet;
+import se.mickelus.tetra.items.duplex_tool.ItemDuplexToolModular;
+import se.mickelus.tetra.items.sword.ItemSwordModular;
+import se.mickelus.tetra.module.ItemEffect;
+import se.mickelus.tetra.module.ItemUpgradeRegistry;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the stat getters that are called by vanilla and other mods during combat, mining and rendering. With
+ * cached set to false all derived item data is dropped before each invocation, which measures the cost of decoding and
+ * compiling stats for a stack that has just been changed.
+ *
+ * Run with "gradlew jmh", e.g. "gradlew jmh -PjmhInclude=ModularItemBenchmark.capability" to only run some benchmarks.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Thread)
+public class ModularItemBenchmark {
+
+    @Param({ "true", "false" })
+    public boolean cached;
+
+    private BenchmarkEnvironment environment;
+
+    private ItemStack swordStack;
+    private ItemStack duplexStack;
+    private ItemStack vanillaAxeStack;
+    private ItemStack plainStack;
+
+    private BlockState logState;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        environment = BenchmarkEnvironment.get();
+
+        swordStack = BenchmarkEnvironment.createStack(environment.sword,
+                "sword/basic_blade", "basic_blade/iron",
+                "sword/basic_hilt", "basic_hilt/iron",
+                "sword/makeshift_guard", "makeshift_guard/iron");
+        BenchmarkEnvironment.addImprovement(swordStack, ItemSwordModular.bladeKey, "enchantment/sharpness", 2);
+
+        duplexStack = BenchmarkEnvironment.createStack(environment.duplexTool,
+                "duplex/basic_axe_left", "basic_axe/iron",
+                "duplex/butt_right", "butt/iron",
+                "duplex/basic_handle", "basic_handle/oak",
+                "duplex/binding", "duplex_binding/leather");
+        BenchmarkEnvironment.addImprovement(duplexStack, ItemDuplexToolModular.headLeftKey, "enchantment/efficiency", 1);
+
+        vanillaAxeStack = new ItemStack(Items.IRON_AXE);
+        plainStack = new ItemStack(Items.STICK);
+
+        logState = Blocks.OAK_LOG.getDefaultState();
+    }
+
+    @Setup(Level.Invocation)
+    public void invalidate() {
+        if (!cached) {
+            ItemModularView.invalidateAll();
+            ItemStatSheet.invalidateAll();
+        }
+    }
+
+    @Benchmark
+    public int capabilityLevel() {
+        return environment.duplexTool.getCapabilityLevel(duplexStack, Capability.axe);
+    }
+
+    @Benchmark
+    public float capabilityEfficiency() {
+        return environment.duplexTool.getCapabilityEfficiency(duplexStack, Capability.axe);
+    }
+
+    @Benchmark
+    public int effectLevel() {
+        return environment.sword.getEffectLevel(swordStack, ItemEffect.sweeping);
+    }
+
+    @Benchmark
+    public int maxDamage() {
+        return environment.sword.getMaxDamage(swordStack);
+    }
+
+    @Benchmark
+    public float destroySpeed() {
+        return environment.duplexTool.getDestroySpeed(duplexStack, logState);
+    }
+
+    @Benchmark
+    public void attributeModifiers(Blackhole blackhole) {
+        blackhole.consume(environment.sword.getAttributeModifiers(EquipmentSlotType.MAINHAND, swordStack));
+    }
+
+    @Benchmark
+    public void synergyData(Blackhole blackhole) {
+        blackhole.consume(environment.duplexTool.getSynergyData(duplexStack));
+    }
+
+    @Benchmark
+    public void replacementVanillaTool(Blackhole blackhole) {
+        blackhole.consume(ItemUpgradeRegistry.instance.getReplacement(vanillaAxeStack));
+    }
+
+    @Benchmark
+    public void replacementPlainItem(Blackhole blackhole) {
+        blackhole.consume(ItemUpgradeRegistry.instance.getReplacement(plainStack));
+    }
+}
@@ -18,6 +18,11 @@ public class ConfigHandler {
 
     public static ForgeConfigSpec.BooleanValue development;
 
+    public static ForgeConfigSpec.BooleanValue renderStatistics;
+
+    public static ForgeConfigSpec.IntValue modelCacheQuads;
+    public static ForgeConfigSpec.IntValue modelCacheExpiry;
+
     public static ForgeConfigSpec.BooleanValue generateGeodes;
 
     public static ForgeConfigSpec.BooleanValue generateFeatures;
@@ -46,6 +51,25 @@ public class ConfigHandler {
 
         builder.pop();
 
+        // client config
+        builder
+                .comment("Client settings, model cache changes apply once resources are reloaded")
+                .push("client");
+
+        modelCacheQuads = builder
+                .comment("The number of quads that can be held by the baked model cache, lower values use less memory while higher values avoid rebaking models when a lot of different modular items are in view")
+                .defineInRange("model_cache_quads", 400000, 1000, Integer.MAX_VALUE);
+
+        modelCacheExpiry = builder
+                .comment("Baked models that have not been rendered for this many seconds are dropped from the cache")
+                .defineInRange("model_cache_expiry", 300, 1, Integer.MAX_VALUE);
+
+        renderStatistics = builder
+                .comment("Shows a debug overlay with statistics for modular item model baking & caching, item text and workbench updates. Can also be toggled in game using the \"/trenderstats\" command")
+                .define("render_statistics", false);
+
+        builder.pop();
+
         // worldgen config
         builder
                 .comment("World generation settings")
@@ -40,7 +40,7 @@ public class ModuleDevCommand {
                 .toArray(OutcomePreview[]::new);
 
         for (int i = 0; i < outcomes.length; i++) {
-            ItemStack itemStack = outcomes[i].itemStack.copy();
+            ItemStack itemStack = outcomes[i].getItemStack().copy();
             itemStack.setDisplayName(itemStack.getDisplayName());
             ItemFrameEntity itemFrame = new ItemFrameEntity(world, pos.add(i / 5, i % 5, 0), Direction.SOUTH);
             itemFrame.setDisplayedItem(itemStack);
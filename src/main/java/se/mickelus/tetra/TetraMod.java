@@ -3,7 +3,6 @@ package se.mickelus.tetra;
 import net.minecraft.advancements.CriteriaTriggers;
 import net.minecraft.advancements.criterion.ItemPredicate;
 import net.minecraft.block.Block;
-import net.minecraft.client.Minecraft;
 import net.minecraft.inventory.container.ContainerType;
 import net.minecraft.item.Item;
 import net.minecraft.potion.Effect;
@@ -38,8 +37,13 @@ import se.mickelus.tetra.blocks.geode.*;
 import se.mickelus.tetra.blocks.workbench.WorkbenchBlock;
 import se.mickelus.tetra.blocks.workbench.WorkbenchContainer;
 import se.mickelus.tetra.blocks.workbench.WorkbenchTile;
+import se.mickelus.tetra.capabilities.PlayerCapabilityAggregate;
 import se.mickelus.tetra.client.model.ModularModelLoader;
+import se.mickelus.tetra.client.model.ModuleSpriteManifest;
+import se.mickelus.tetra.data.DataDeltaPacket;
+import se.mickelus.tetra.data.DataHashPacket;
 import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.data.RequestDataPacket;
 import se.mickelus.tetra.data.UpdateDataPacket;
 import se.mickelus.tetra.items.ITetraItem;
 import se.mickelus.tetra.items.ItemPredicateModular;
@@ -89,6 +93,7 @@ public class TetraMod {
         MinecraftForge.EVENT_BUS.register(new DataManager());
         MinecraftForge.EVENT_BUS.register(TetraMod.proxy);
         MinecraftForge.EVENT_BUS.register(BlockLookTrigger.instance);
+        MinecraftForge.EVENT_BUS.register(PlayerCapabilityAggregate.class);
 
         ConfigHandler.setup();
 
@@ -183,9 +188,13 @@ public class TetraMod {
         packetHandler.registerPacket(HonePacket.class, HonePacket::new);
         packetHandler.registerPacket(SettlePacket.class, SettlePacket::new);
         packetHandler.registerPacket(UpdateDataPacket.class, UpdateDataPacket::new);
+        packetHandler.registerPacket(DataHashPacket.class, DataHashPacket::new);
+        packetHandler.registerPacket(RequestDataPacket.class, RequestDataPacket::new);
+        packetHandler.registerPacket(DataDeltaPacket.class, DataDeltaPacket::new);
 
         proxy.postInit();
 
+        PlayerCapabilityAggregate.register();
         DestabilizationEffect.init();
         new CleanseSchema();
     }
@@ -221,11 +230,7 @@ public class TetraMod {
     @OnlyIn(Dist.CLIENT)
     public static void provideTextures(final TextureStitchEvent.Pre event) {
         if ("textures".equals(event.getMap().getBasePath())) {
-            Minecraft.getInstance().getResourceManager().getAllResourceLocations("textures/items/module", s -> s.endsWith(".png")).stream()
-                    .filter(resourceLocation -> MOD_ID.equals(resourceLocation.getNamespace()))
-                    // 9 is the length of "textures/" & 4 is the length of ".png"
-                    .map(rl -> new ResourceLocation(rl.getNamespace(), rl.getPath().substring(9, rl.getPath().length() - 4)))
-                    .forEach(event::addSprite);
+            ModuleSpriteManifest.getSprites().forEach(event::addSprite);
         }
     }
 
@@ -23,9 +23,8 @@ public class RepairAction implements WorkbenchAction {
     @Override
     public boolean canPerformOn(PlayerEntity player, ItemStack itemStack) {
         if (itemStack.getItem() instanceof ItemModular) {
-            UpgradeSchema[] schemas = ItemUpgradeRegistry.instance.getAvailableSchemas(player, itemStack);
+            UpgradeSchema[] schemas = ItemUpgradeRegistry.instance.getAvailableSchemas(player, itemStack, null);
             return Arrays.stream(schemas)
-                    .filter(upgradeSchema -> upgradeSchema.isApplicableForSlot(null, itemStack))
                     .anyMatch(upgradeSchema -> upgradeSchema instanceof RepairSchema);
         }
 
@@ -44,9 +43,8 @@ public class RepairAction implements WorkbenchAction {
 
     @Override
     public void perform(PlayerEntity player, ItemStack itemStack, WorkbenchTile workbench) {
-        UpgradeSchema[] schemas = ItemUpgradeRegistry.instance.getAvailableSchemas(player, itemStack);
+        UpgradeSchema[] schemas = ItemUpgradeRegistry.instance.getAvailableSchemas(player, itemStack, null);
         Arrays.stream(schemas)
-                .filter(upgradeSchema -> upgradeSchema.isApplicableForSlot(null, itemStack))
                 .filter(upgradeSchema -> upgradeSchema instanceof RepairSchema)
                 .findFirst()
                 .map(upgradeSchema -> (RepairSchema) upgradeSchema)
@@ -35,6 +35,13 @@ public class GuiModuleGlyph extends GuiElement {
         this(x, y, width, height, glyphData.tint, glyphData.textureX, glyphData.textureY, glyphData.textureLocation);
     }
 
+    public void setGlyph(GlyphData glyphData) {
+        tint = glyphData.tint;
+        textureX = glyphData.textureX;
+        textureY = glyphData.textureY;
+        textureLocation = glyphData.textureLocation;
+    }
+
     public GuiModuleGlyph setShift(boolean shift) {
         this.shift = shift;
         return this;
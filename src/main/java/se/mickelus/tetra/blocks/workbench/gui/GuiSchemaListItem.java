@@ -20,19 +20,39 @@ public class GuiSchemaListItem extends GuiClickable {
     private GuiTexture glyph;
     private GuiString label;
 
+    private UpgradeSchema schema;
     private SchemaRarity rarity;
 
+    private Runnable clickHandler;
+
     public GuiSchemaListItem(int x, int y, UpgradeSchema schema, Runnable onClickHandler) {
         this(x, y, 109, schema, onClickHandler);
     }
 
     public GuiSchemaListItem(int x, int y, int width, UpgradeSchema schema, Runnable onClickHandler) {
-        super(x, y, width, 14, onClickHandler);
+        super(x, y, width, 14, () -> {});
+
+        setSchema(schema, onClickHandler);
+    }
+
+    /**
+     * Rebinds this item to another schema, allowing items to be reused as the schemas they display scroll in and out of view
+     */
+    public void setSchema(UpgradeSchema schema, Runnable onClickHandler) {
+        this.clickHandler = onClickHandler;
+
+        if (schema == this.schema) {
+            return;
+        }
+
+        this.schema = schema;
+        clearChildren();
+        border = null;
 
         rarity = schema.getRarity();
 
         label = new GuiString(16, 3, width - 16, schema.getName());
-        label.setColor(rarity.tint);
+        label.setColor(hasFocus() ? GuiColors.hover : rarity.tint);
         addChild(label);
 
         GlyphData glyphData = schema.getGlyph();
@@ -50,7 +70,7 @@ public class GuiSchemaListItem extends GuiClickable {
         }
 
         if (border != null) {
-            border.setOpacity(0.3f);
+            border.setOpacity(hasFocus() ? 0.6f : 0.3f);
             border.setColor(rarity.tint);
             addChild(border);
         }
@@ -63,6 +83,15 @@ public class GuiSchemaListItem extends GuiClickable {
         addChild(glyph);
     }
 
+    @Override
+    public boolean onClick(int x, int y) {
+        if (super.onClick(x, y)) {
+            clickHandler.run();
+            return true;
+        }
+        return false;
+    }
+
     @Override
     protected void onFocus() {
         if (border != null) {
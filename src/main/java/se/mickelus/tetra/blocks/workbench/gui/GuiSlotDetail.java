@@ -165,9 +165,8 @@ public class GuiSlotDetail extends GuiElement {
 
     private void updateSchemaList(PlayerEntity player, WorkbenchTile tileEntity, String selectedSlot) {
         ItemStack targetStack = tileEntity.getTargetItemStack();
-        UpgradeSchema[] schemas = ItemUpgradeRegistry.instance.getAvailableSchemas(player, targetStack);
+        UpgradeSchema[] schemas = ItemUpgradeRegistry.instance.getAvailableSchemas(player, targetStack, selectedSlot);
         schemas = Arrays.stream(schemas)
-                .filter(upgradeSchema -> upgradeSchema.isApplicableForSlot(selectedSlot, targetStack))
                 .sorted(Comparator.comparing(UpgradeSchema::getRarity).thenComparing(UpgradeSchema::getType).thenComparing(UpgradeSchema::getKey))
                 .toArray(UpgradeSchema[]::new);
         schemaList.setSchemas(schemas);
@@ -1,5 +1,8 @@
 package se.mickelus.tetra.blocks.workbench.gui;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.gui.screen.inventory.ContainerScreen;
 import net.minecraft.entity.player.PlayerEntity;
@@ -13,6 +16,8 @@ import net.minecraft.world.World;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 import net.minecraftforge.fml.client.config.GuiUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 import se.mickelus.mgui.gui.GuiAttachment;
 import se.mickelus.mgui.gui.GuiElement;
 import se.mickelus.mgui.gui.GuiTexture;
@@ -21,6 +26,7 @@ import se.mickelus.tetra.TetraMod;
 import se.mickelus.tetra.blocks.workbench.WorkbenchTile;
 import se.mickelus.tetra.blocks.workbench.WorkbenchContainer;
 import se.mickelus.tetra.capabilities.CapabilityHelper;
+import se.mickelus.tetra.client.RenderStatistics;
 import se.mickelus.tetra.gui.GuiTextures;
 import se.mickelus.tetra.items.ItemModular;
 import se.mickelus.tetra.module.schema.UpgradeSchema;
@@ -30,10 +36,13 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.ExecutionException;
 import java.util.stream.Collectors;
 
 @OnlyIn(Dist.CLIENT)
 public class WorkbenchScreen extends ContainerScreen<WorkbenchContainer> {
+    private static final Logger logger = LogManager.getLogger();
+
     private static final ResourceLocation inventoryTexture = new ResourceLocation(TetraMod.MOD_ID, "textures/gui/player-inventory.png");
 
     private PlayerEntity viewingPlayer;
@@ -62,6 +71,12 @@ public class WorkbenchScreen extends ContainerScreen<WorkbenchContainer> {
 
     private boolean hadItem = false;
 
+    // preview stacks are memoized per schema, slot, target and materials, hovering back and forth between material slots
+    // would otherwise apply the upgrade again for every hover
+    private final Cache<PreviewKey, ItemStack> previewCache = CacheBuilder.newBuilder()
+            .maximumSize(64)
+            .build();
+
     public WorkbenchScreen(WorkbenchContainer container, PlayerInventory playerInventory, ITextComponent title) {
         super(container, playerInventory, title);
 
@@ -199,6 +214,7 @@ public class WorkbenchScreen extends ContainerScreen<WorkbenchContainer> {
     }
 
     private void onTileEntityChange() {
+        long start = System.nanoTime();
         ItemStack newTarget = tileEntity.getTargetItemStack();
         ItemStack newPreview = ItemStack.EMPTY;
         UpgradeSchema newSchema = tileEntity.getCurrentSchema();
@@ -268,6 +284,8 @@ public class WorkbenchScreen extends ContainerScreen<WorkbenchContainer> {
             actionList.setVisible(false);
             slotDetail.setVisible(false);
         }
+
+        RenderStatistics.recordGuiUpdate(System.nanoTime() - start);
     }
 
     private boolean diffMaterials(ItemStack[] newMaterials) {
@@ -352,10 +370,18 @@ public class WorkbenchScreen extends ContainerScreen<WorkbenchContainer> {
     }
 
     private ItemStack buildPreviewStack(UpgradeSchema schema, ItemStack targetStack, ItemStack[] materials) {
-        if (schema.isMaterialsValid(targetStack, materials)) {
-            return schema.applyUpgrade(targetStack, materials, false, tileEntity.getCurrentSlot(), null);
+        String slot = tileEntity.getCurrentSlot();
+        try {
+            return previewCache.get(new PreviewKey(schema, slot, targetStack, materials), () -> {
+                if (schema.isMaterialsValid(targetStack, materials)) {
+                    return schema.applyUpgrade(targetStack, materials, false, slot, null);
+                }
+                return ItemStack.EMPTY;
+            });
+        } catch (ExecutionException | UncheckedExecutionException e) {
+            logger.warn("Failed to build preview stack for schema " + schema.getKey(), e.getCause());
+            return ItemStack.EMPTY;
         }
-        return ItemStack.EMPTY;
     }
 
     @Override
@@ -363,4 +389,58 @@ public class WorkbenchScreen extends ContainerScreen<WorkbenchContainer> {
         slotDetail.keyTyped(typecChar);
         return false;
     }
+
+    private static class PreviewKey {
+        private final UpgradeSchema schema;
+        private final String slot;
+        private final ItemStack targetStack;
+        private final ItemStack[] materials;
+
+        private final int hash;
+
+        PreviewKey(UpgradeSchema schema, String slot, ItemStack targetStack, ItemStack[] materials) {
+            this.schema = schema;
+            this.slot = slot;
+            this.targetStack = targetStack.copy();
+            this.materials = Arrays.stream(materials)
+                    .map(ItemStack::copy)
+                    .toArray(ItemStack[]::new);
+
+            int hash = Objects.hash(schema, slot, targetStack.getItem(), targetStack.getTag());
+            for (ItemStack material : materials) {
+                hash = 31 * hash + Objects.hash(material.getItem(), material.getCount());
+            }
+            this.hash = hash;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            PreviewKey that = (PreviewKey) o;
+            if (schema != that.schema || !Objects.equals(slot, that.slot) || materials.length != that.materials.length
+                    || !ItemStack.areItemStacksEqual(targetStack, that.targetStack)) {
+                return false;
+            }
+
+            for (int i = 0; i < materials.length; i++) {
+                if (!ItemStack.areItemStacksEqual(materials[i], that.materials[i])) {
+                    return false;
+                }
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
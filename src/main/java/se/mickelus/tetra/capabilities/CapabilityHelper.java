@@ -7,13 +7,11 @@ import net.minecraft.item.ItemStack;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import se.mickelus.tetra.blocks.ITetraBlock;
-import se.mickelus.tetra.items.ItemModular;
 import se.mickelus.tetra.module.ItemEffect;
 import se.mickelus.tetra.module.ItemUpgradeRegistry;
 import se.mickelus.tetra.util.CastOptional;
 
 import java.util.*;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 public class CapabilityHelper {
@@ -37,42 +35,19 @@ public class CapabilityHelper {
     }
 
     public static int getPlayerEffectLevel(PlayerEntity player, ItemEffect effect) {
-        return Stream.concat(player.inventory.offHandInventory.stream(), player.inventory.mainInventory.stream())
-                .filter(itemStack -> !itemStack.isEmpty())
-                .map(CapabilityHelper::getReplacement)
-                .filter(itemStack -> itemStack.getItem() instanceof ItemModular)
-                .map(itemStack -> ((ItemModular) itemStack.getItem()).getEffectLevel(itemStack, effect))
-                .max(Integer::compare)
-                .orElse(0);
+        return PlayerCapabilityAggregate.get(player).getEffectLevel(effect);
     }
 
     public static double getPlayerEffectEfficiency(PlayerEntity player, ItemEffect effect) {
-        return Stream.concat(player.inventory.offHandInventory.stream(), player.inventory.mainInventory.stream())
-                .filter(itemStack -> !itemStack.isEmpty())
-                .map(CapabilityHelper::getReplacement)
-                .filter(itemStack -> itemStack.getItem() instanceof ItemModular)
-                .max(Comparator.comparingInt(itemStack -> ((ItemModular) itemStack.getItem()).getEffectLevel(itemStack, effect)))
-                .map(itemStack -> ((ItemModular) itemStack.getItem()).getEffectEfficiency(itemStack, effect))
-                .orElse(0d);
+        return PlayerCapabilityAggregate.get(player).getEffectEfficiency(effect);
     }
 
     public static int getPlayerCapabilityLevel(PlayerEntity player, Capability capability) {
-        return Stream.concat(player.inventory.offHandInventory.stream(), player.inventory.mainInventory.stream())
-                .filter(itemStack -> !itemStack.isEmpty())
-                .map(CapabilityHelper::getReplacement)
-                .filter(itemStack -> itemStack.getItem() instanceof ICapabilityProvider)
-                .map(itemStack -> ((ICapabilityProvider) itemStack.getItem()).getCapabilityLevel(itemStack, capability))
-                .max(Integer::compare)
-                .orElse(0);
+        return PlayerCapabilityAggregate.get(player).getCapabilityLevel(capability);
     }
 
     public static Collection<Capability> getPlayerCapabilities(PlayerEntity player) {
-        return Stream.concat(player.inventory.offHandInventory.stream(), player.inventory.mainInventory.stream())
-                .filter(itemStack -> !itemStack.isEmpty())
-                .map(CapabilityHelper::getReplacement)
-                .filter(itemStack -> itemStack.getItem() instanceof ICapabilityProvider)
-                .flatMap(itemStack -> ((ICapabilityProvider) itemStack.getItem()).getCapabilities(itemStack).stream())
-                .collect(Collectors.toSet());
+        return PlayerCapabilityAggregate.get(player).getCapabilities();
     }
 
     private static ItemStack getReplacement(ItemStack itemStack) {
@@ -0,0 +1,285 @@
+package se.mickelus.tetra.capabilities;
+
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.nbt.INBT;
+import net.minecraft.util.Direction;
+import net.minecraft.util.NonNullList;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.common.capabilities.CapabilityInject;
+import net.minecraftforge.common.capabilities.CapabilityManager;
+import net.minecraftforge.common.util.LazyOptional;
+import net.minecraftforge.event.AttachCapabilitiesEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import se.mickelus.tetra.TetraMod;
+import se.mickelus.tetra.items.ItemModular;
+import se.mickelus.tetra.items.ItemModularView;
+import se.mickelus.tetra.module.ItemEffect;
+import se.mickelus.tetra.module.ItemUpgradeRegistry;
+
+import java.util.*;
+
+/**
+ * Capabilities and effects provided by the offhand and main inventory of a player, aggregated per slot. The aggregate is
+ * attached to each player and refreshed once per player tick, each slot is snapshotted when its contribution is computed and
+ * only slots that have changed since are recomputed. Queries are plain reads of the aggregated values as of the last tick.
+ */
+public class PlayerCapabilityAggregate {
+
+    @CapabilityInject(PlayerCapabilityAggregate.class)
+    public static net.minecraftforge.common.capabilities.Capability<PlayerCapabilityAggregate> CAPABILITY = null;
+
+    private static final ResourceLocation key = new ResourceLocation(TetraMod.MOD_ID, "capability_aggregate");
+
+    private static final Capability[] capabilities = Capability.values();
+    private static final ItemEffect[] effects = ItemEffect.values();
+
+    // used for entities that the aggregate has not been attached to
+    private static final PlayerCapabilityAggregate empty = new PlayerCapabilityAggregate(null);
+
+    // bumped when data that the contribution of slots depend upon is reloaded, aggregates recompute all slots when it changes
+    private static volatile int generation = 0;
+    private int updatedGeneration = -1;
+
+    private final PlayerEntity player;
+
+    // snapshot of each slot, offhand slots first followed by main inventory slots
+    private ItemStack[] stacks = new ItemStack[0];
+    private Item[] items = new Item[0];
+    private CompoundNBT[] tags = new CompoundNBT[0];
+    private int[] damage = new int[0];
+    private ItemModularView[] views = new ItemModularView[0];
+
+    // contribution of each slot, null if the slot holds no provider
+    private int[][] slotCapabilityLevels = new int[0][];
+    private long[] slotCapabilities = new long[0];
+    private int[][] slotEffectLevels = new int[0][];
+    private double[][] slotEffectEfficiencies = new double[0][];
+
+    private final int[] capabilityLevels = new int[capabilities.length];
+    private Set<Capability> capabilitySet = Collections.emptySet();
+    private final int[] effectLevels = new int[effects.length];
+    private final double[] effectEfficiencies = new double[effects.length];
+
+    private PlayerCapabilityAggregate(PlayerEntity player) {
+        this.player = player;
+    }
+
+    public static void register() {
+        CapabilityManager.INSTANCE.register(PlayerCapabilityAggregate.class,
+                new net.minecraftforge.common.capabilities.Capability.IStorage<PlayerCapabilityAggregate>() {
+                    @Override
+                    public INBT writeNBT(net.minecraftforge.common.capabilities.Capability<PlayerCapabilityAggregate> capability,
+                            PlayerCapabilityAggregate instance, Direction side) {
+                        return null;
+                    }
+
+                    @Override
+                    public void readNBT(net.minecraftforge.common.capabilities.Capability<PlayerCapabilityAggregate> capability,
+                            PlayerCapabilityAggregate instance, Direction side, INBT nbt) { }
+                },
+                () -> {
+                    throw new UnsupportedOperationException("The capability aggregate can only be attached to players");
+                });
+    }
+
+    @SubscribeEvent
+    public static void onAttachCapabilities(AttachCapabilitiesEvent<Entity> event) {
+        if (event.getObject() instanceof PlayerEntity) {
+            event.addCapability(key, new Provider(new PlayerCapabilityAggregate((PlayerEntity) event.getObject())));
+        }
+    }
+
+    @SubscribeEvent
+    public static void onPlayerTick(TickEvent.PlayerTickEvent event) {
+        if (event.phase == TickEvent.Phase.END) {
+            event.player.getCapability(CAPABILITY).ifPresent(PlayerCapabilityAggregate::update);
+        }
+    }
+
+    /**
+     * Returns the aggregate for the given player, as of the end of the last tick of the player.
+     */
+    public static PlayerCapabilityAggregate get(PlayerEntity player) {
+        return player.getCapability(CAPABILITY).orElse(empty);
+    }
+
+    /**
+     * Makes all aggregates recompute the contribution of every slot on their next refresh, has to be called when data that
+     * the capabilities or effects of items depend upon is reloaded.
+     */
+    public static void invalidateAll() {
+        generation++;
+    }
+
+    private void update() {
+        NonNullList<ItemStack> offhand = player.inventory.offHandInventory;
+        NonNullList<ItemStack> main = player.inventory.mainInventory;
+        int size = offhand.size() + main.size();
+
+        boolean changed = false;
+        if (stacks.length != size || updatedGeneration != generation) {
+            resize(size);
+            updatedGeneration = generation;
+            changed = true;
+        }
+
+        for (int i = 0; i < size; i++) {
+            ItemStack itemStack = i < offhand.size() ? offhand.get(i) : main.get(i - offhand.size());
+            if (hasChanged(i, itemStack)) {
+                updateSlot(i, itemStack);
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            aggregate();
+        }
+    }
+
+    private void resize(int size) {
+        stacks = new ItemStack[size];
+        items = new Item[size];
+        tags = new CompoundNBT[size];
+        damage = new int[size];
+        views = new ItemModularView[size];
+
+        slotCapabilityLevels = new int[size][];
+        slotCapabilities = new long[size];
+        slotEffectLevels = new int[size][];
+        slotEffectEfficiencies = new double[size][];
+    }
+
+    private boolean hasChanged(int slot, ItemStack itemStack) {
+        if (stacks[slot] != itemStack || items[slot] != itemStack.getItem() || tags[slot] != itemStack.getTag()
+                || damage[slot] != itemStack.getDamage()) {
+            return true;
+        }
+
+        // module data may have been written to the tag in place, which drops the cached view of the stack
+        return views[slot] != null && views[slot] != ItemModularView.get(itemStack);
+    }
+
+    private void updateSlot(int slot, ItemStack itemStack) {
+        stacks[slot] = itemStack;
+        items[slot] = itemStack.getItem();
+        tags[slot] = itemStack.getTag();
+        damage[slot] = itemStack.getDamage();
+        views[slot] = ItemModularView.get(itemStack);
+
+        slotCapabilityLevels[slot] = null;
+        slotCapabilities[slot] = 0;
+        slotEffectLevels[slot] = null;
+        slotEffectEfficiencies[slot] = null;
+
+        if (itemStack.isEmpty()) {
+            return;
+        }
+
+        ItemStack providingStack = ItemUpgradeRegistry.instance.getReplacement(itemStack);
+        if (providingStack.isEmpty()) {
+            providingStack = itemStack;
+        }
+
+        if (providingStack.getItem() instanceof ICapabilityProvider) {
+            ICapabilityProvider provider = (ICapabilityProvider) providingStack.getItem();
+            int[] levels = new int[capabilities.length];
+            for (Capability capability : capabilities) {
+                levels[capability.ordinal()] = provider.getCapabilityLevel(providingStack, capability);
+            }
+
+            slotCapabilityLevels[slot] = levels;
+            for (Capability capability : provider.getCapabilities(providingStack)) {
+                slotCapabilities[slot] |= 1L << capability.ordinal();
+            }
+        }
+
+        if (providingStack.getItem() instanceof ItemModular) {
+            ItemModular item = (ItemModular) providingStack.getItem();
+            int[] levels = new int[effects.length];
+            double[] efficiencies = new double[effects.length];
+            for (ItemEffect effect : effects) {
+                levels[effect.ordinal()] = item.getEffectLevel(providingStack, effect);
+                efficiencies[effect.ordinal()] = item.getEffectEfficiency(providingStack, effect);
+            }
+
+            slotEffectLevels[slot] = levels;
+            slotEffectEfficiencies[slot] = efficiencies;
+        }
+    }
+
+    private void aggregate() {
+        Arrays.fill(capabilityLevels, 0);
+        Arrays.fill(effectLevels, 0);
+        Arrays.fill(effectEfficiencies, 0);
+
+        long capabilityMask = 0;
+        boolean hasCapabilityProvider = false;
+        boolean[] hasEffectProvider = new boolean[effects.length];
+
+        for (int slot = 0; slot < stacks.length; slot++) {
+            if (slotCapabilityLevels[slot] != null) {
+                for (int i = 0; i < capabilities.length; i++) {
+                    capabilityLevels[i] = hasCapabilityProvider
+                            ? Math.max(capabilityLevels[i], slotCapabilityLevels[slot][i])
+                            : slotCapabilityLevels[slot][i];
+                }
+
+                capabilityMask |= slotCapabilities[slot];
+                hasCapabilityProvider = true;
+            }
+
+            // efficiency is taken from the first slot providing the highest level of the effect
+            if (slotEffectLevels[slot] != null) {
+                for (int i = 0; i < effects.length; i++) {
+                    if (!hasEffectProvider[i] || slotEffectLevels[slot][i] > effectLevels[i]) {
+                        effectLevels[i] = slotEffectLevels[slot][i];
+                        effectEfficiencies[i] = slotEffectEfficiencies[slot][i];
+                        hasEffectProvider[i] = true;
+                    }
+                }
+            }
+        }
+
+        EnumSet<Capability> capabilitySet = EnumSet.noneOf(Capability.class);
+        for (Capability capability : capabilities) {
+            if ((capabilityMask & 1L << capability.ordinal()) != 0) {
+                capabilitySet.add(capability);
+            }
+        }
+        this.capabilitySet = Collections.unmodifiableSet(capabilitySet);
+    }
+
+    public int getCapabilityLevel(Capability capability) {
+        return capabilityLevels[capability.ordinal()];
+    }
+
+    public Collection<Capability> getCapabilities() {
+        return capabilitySet;
+    }
+
+    public int getEffectLevel(ItemEffect effect) {
+        return effectLevels[effect.ordinal()];
+    }
+
+    public double getEffectEfficiency(ItemEffect effect) {
+        return effectEfficiencies[effect.ordinal()];
+    }
+
+    private static class Provider implements net.minecraftforge.common.capabilities.ICapabilityProvider {
+        private final LazyOptional<PlayerCapabilityAggregate> instance;
+
+        Provider(PlayerCapabilityAggregate aggregate) {
+            instance = LazyOptional.of(() -> aggregate);
+        }
+
+        @Override
+        public <T> LazyOptional<T> getCapability(net.minecraftforge.common.capabilities.Capability<T> capability, Direction side) {
+            return capability == CAPABILITY ? instance.cast() : LazyOptional.empty();
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package se.mickelus.tetra.client;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects timings for the client side work that goes into displaying modular items: model bakes, display text resolution
+ * and workbench gui updates. Recording is cheap enough to always be done, the statistics are shown by the render statistics
+ * overlay when it's enabled.
+ */
+public class RenderStatistics {
+    private static final Sampler bakeTimes = new Sampler(1024);
+    private static final Sampler textResolveTimes = new Sampler(1024);
+    private static final Sampler guiUpdateTimes = new Sampler(256);
+
+    private static final AtomicLong bakedModelCount = new AtomicLong();
+    private static final AtomicLong bakedQuadCount = new AtomicLong();
+
+    /**
+     * @param time The time spent baking a model, in nanoseconds
+     */
+    public static void recordBake(long time) {
+        bakeTimes.record(time);
+    }
+
+    /**
+     * @param quadCount The number of quads in a model that has been baked
+     */
+    public static void recordQuads(int quadCount) {
+        bakedModelCount.incrementAndGet();
+        bakedQuadCount.addAndGet(quadCount);
+    }
+
+    /**
+     * @param time The time spent resolving the name or tooltip lines of an item, in nanoseconds
+     */
+    public static void recordTextResolve(long time) {
+        textResolveTimes.record(time);
+    }
+
+    /**
+     * @param time The time spent updating the workbench gui after the workbench changed, in nanoseconds
+     */
+    public static void recordGuiUpdate(long time) {
+        guiUpdateTimes.record(time);
+    }
+
+    public static Sampler getBakeTimes() {
+        return bakeTimes;
+    }
+
+    public static Sampler getTextResolveTimes() {
+        return textResolveTimes;
+    }
+
+    public static Sampler getGuiUpdateTimes() {
+        return guiUpdateTimes;
+    }
+
+    /**
+     * @return the average number of quads per baked model
+     */
+    public static double getAverageQuadCount() {
+        long models = bakedModelCount.get();
+        return models > 0 ? bakedQuadCount.get() / (double) models : 0;
+    }
+
+    /**
+     * Keeps the most recent samples of a timing in a ring buffer, percentiles are computed from the buffered samples while
+     * the count, average and max cover all samples.
+     */
+    public static class Sampler {
+        private final long[] samples;
+        private int next = 0;
+        private long count = 0;
+        private long total = 0;
+        private long max = 0;
+
+        public Sampler(int size) {
+            samples = new long[size];
+        }
+
+        public synchronized void record(long value) {
+            samples[next] = value;
+            next = (next + 1) % samples.length;
+            count++;
+            total += value;
+            max = Math.max(max, value);
+        }
+
+        public synchronized long getCount() {
+            return count;
+        }
+
+        /**
+         * @return the average of all samples, in nanoseconds
+         */
+        public synchronized long getAverage() {
+            return count > 0 ? total / count : 0;
+        }
+
+        /**
+         * @return the largest of all samples, in nanoseconds
+         */
+        public synchronized long getMax() {
+            return max;
+        }
+
+        /**
+         * @param percentile A value between 0 and 1
+         * @return the given percentile of the buffered samples, in nanoseconds
+         */
+        public synchronized long getPercentile(double percentile) {
+            int size = (int) Math.min(count, samples.length);
+            if (size == 0) {
+                return 0;
+            }
+
+            long[] sorted = Arrays.copyOf(samples, size);
+            Arrays.sort(sorted);
+            return sorted[Math.max(0, Math.min(size - 1, (int) Math.ceil(percentile * size) - 1))];
+        }
+    }
+}
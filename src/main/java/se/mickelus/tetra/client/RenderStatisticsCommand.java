@@ -0,0 +1,28 @@
+package se.mickelus.tetra.client;
+
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.ClientChatEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+
+/**
+ * Client side "trenderstats" command, toggles the render statistics overlay or writes the statistics to the log when run as
+ * "trenderstats log". Handled before the message is sent to the server so that it's available on servers without tetra.
+ */
+@OnlyIn(Dist.CLIENT)
+public class RenderStatisticsCommand {
+    private static final String command = "/trenderstats";
+    private static final String logCommand = command + " log";
+
+    @SubscribeEvent
+    public void onChat(ClientChatEvent event) {
+        String message = event.getMessage().trim();
+        if (command.equals(message)) {
+            RenderStatisticsOverlay.toggle();
+            event.setCanceled(true);
+        } else if (logCommand.equals(message)) {
+            RenderStatisticsOverlay.log();
+            event.setCanceled(true);
+        }
+    }
+}
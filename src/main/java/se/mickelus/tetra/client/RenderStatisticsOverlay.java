@@ -0,0 +1,80 @@
+package se.mickelus.tetra.client;
+
+import com.google.common.cache.CacheStats;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.RenderGameOverlayEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.mickelus.tetra.ConfigHandler;
+import se.mickelus.tetra.client.model.ModularOverrideList;
+import se.mickelus.tetra.items.ItemDisplayText;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Debug overlay showing statistics for modular item model caching and baking, display text resolution and workbench gui
+ * updates. Shown when enabled in the config, and can be toggled in game using the trenderstats command.
+ */
+@OnlyIn(Dist.CLIENT)
+public class RenderStatisticsOverlay {
+    private static final Logger logger = LogManager.getLogger();
+
+    // overrides the config value once toggled by the command
+    private static Boolean visible = null;
+
+    public static void toggle() {
+        visible = !isVisible();
+    }
+
+    public static boolean isVisible() {
+        return visible != null ? visible : ConfigHandler.renderStatistics.get();
+    }
+
+    /**
+     * Writes the current statistics to the log.
+     */
+    public static void log() {
+        getLines().forEach(logger::info);
+    }
+
+    @SubscribeEvent
+    public void renderOverlay(RenderGameOverlayEvent.Text event) {
+        if (isVisible()) {
+            event.getLeft().add("");
+            event.getLeft().addAll(getLines());
+        }
+    }
+
+    private static List<String> getLines() {
+        List<String> lines = new ArrayList<>();
+        CacheStats cacheStats = ModularOverrideList.getCacheStats();
+        RenderStatistics.Sampler bakeTimes = RenderStatistics.getBakeTimes();
+
+        lines.add("[tetra] model cache: " + ModularOverrideList.getCacheSize() + " models, "
+                + String.format("%.1f%% hits", cacheStats.hitRate() * 100) + " ("
+                + cacheStats.hitCount() + "/" + cacheStats.missCount() + "), "
+                + cacheStats.evictionCount() + " evictions");
+        lines.add("[tetra] model bakes: " + bakeTimes.getCount() + " baked, " + ModularOverrideList.getQueueDepth() + " queued, "
+                + String.format("%.1f quads/model", RenderStatistics.getAverageQuadCount()));
+        lines.add("[tetra] bake time: " + formatPercentiles(bakeTimes)
+                + " max " + formatTime(bakeTimes.getMax()));
+        lines.add("[tetra] item text: " + formatPercentiles(RenderStatistics.getTextResolveTimes()) + " ("
+                + ItemDisplayText.getHitCount() + "/" + ItemDisplayText.getMissCount() + " hits/misses)");
+        lines.add("[tetra] workbench update: " + formatPercentiles(RenderStatistics.getGuiUpdateTimes()));
+
+        return lines;
+    }
+
+    private static String formatPercentiles(RenderStatistics.Sampler sampler) {
+        return "p50 " + formatTime(sampler.getPercentile(0.5))
+                + " p90 " + formatTime(sampler.getPercentile(0.9))
+                + " p99 " + formatTime(sampler.getPercentile(0.99));
+    }
+
+    private static String formatTime(long nanos) {
+        return String.format("%.2fms", nanos / 1000000d);
+    }
+}
@@ -18,9 +18,13 @@ import net.minecraftforge.client.model.pipeline.UnpackedBakedQuad;
 import net.minecraftforge.common.model.TRSRTransformation;
 
 import java.util.*;
+import java.util.function.BiConsumer;
 import java.util.function.Function;
+import java.util.function.IntPredicate;
 import java.util.stream.Collectors;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import se.mickelus.tetra.module.data.ModuleModel;
@@ -34,6 +38,12 @@ import se.mickelus.tetra.module.data.ModuleModel;
  * - Not limited to 4 layers maximum.
  */
 public final class ModularItemModel implements IUnbakedModel {
+    // quads are cached per layer rather than per model, models that share a layer (e.g. swords with the same blade but
+    // different hilts) reuse the quads of that layer and only the concatenation of layers is done when baking
+    private static final Cache<LayerKey, LayerQuads> layerCache = CacheBuilder.newBuilder()
+            .maximumSize(2000)
+            .build();
+
     private final List<ModuleModel> models;
 
     public ModularItemModel(List<ModuleModel> models) {
@@ -91,13 +101,37 @@ public final class ModularItemModel implements IUnbakedModel {
         for(int i = 0; i < models.size(); i++) {
             ModuleModel model = models.get(i);
             TextureAtlasSprite tas = spriteGetter.apply(model.location);
-            builder.addAll(getQuadsForSprite(i, tas, format, transform, model.tint));
+            builder.addAll(getLayerQuads(i, model, tas, format, transform));
         }
         TextureAtlasSprite particle = spriteGetter.apply(models.isEmpty() ? new ResourceLocation("missingno") : models.get(0).location);
 
         return new BakedItemModel(builder.build(), particle, map, ItemOverrideList.EMPTY, identity);
     }
 
+    /**
+     * Returns the quads for a single layer of a modular item model, keyed on the model location, layer index, tint and
+     * transform. Sprites are recreated when textures are reloaded, cached quads that were built from an old sprite are
+     * rebuilt.
+     */
+    private static List<BakedQuad> getLayerQuads(int layerIndex, ModuleModel model, TextureAtlasSprite sprite,
+            VertexFormat format, Optional<TRSRTransformation> transform) {
+        LayerKey key = new LayerKey(model.location, layerIndex, model.tint, format, transform);
+        LayerQuads layer = layerCache.getIfPresent(key);
+        if (layer == null || layer.sprite != sprite) {
+            layer = new LayerQuads(sprite, getQuadsForSprite(layerIndex, sprite, format, transform, model.tint));
+            layerCache.put(key, layer);
+        }
+
+        return layer.quads;
+    }
+
+    /**
+     * Drops all cached layer quads.
+     */
+    public static void invalidateLayerCache() {
+        layerCache.invalidateAll();
+    }
+
     public static List<BakedQuad> getQuadsForSprite(int tintIndex, TextureAtlasSprite sprite, VertexFormat format,
             Optional<TRSRTransformation> transform, int color) {
         ImmutableList.Builder<BakedQuad> builder = ImmutableList.builder();
@@ -105,15 +139,35 @@ public final class ModularItemModel implements IUnbakedModel {
         int uMax = sprite.getWidth();
         int vMax = sprite.getHeight();
 
-        // todo 1.14: figure out why this doesn't work when considering fully transparent rows
-        for (int v = 0; v < vMax; v++) {
-            builder.add(buildSideQuad(format, transform, Direction.UP, tintIndex, color, sprite, 0, v, uMax));
-            builder.add(buildSideQuad(format, transform, Direction.DOWN, tintIndex, color, sprite, 0, v + 1, uMax));
-        }
+        boolean[][] opaque = getOpacity(sprite);
+        if (opaque != null) {
+            // side faces are only needed where an opaque pixel borders a transparent pixel (or the edge of the sprite),
+            // adjacent faces along the same edge are merged into a single quad
+            for (int v = 0; v < vMax; v++) {
+                final int row = v;
+                addRuns(uMax, u -> opaque[u][row] && (row == 0 || !opaque[u][row - 1]), (start, length) ->
+                        builder.add(buildSideQuad(format, transform, Direction.UP, tintIndex, color, sprite, start, row, length)));
+                addRuns(uMax, u -> opaque[u][row] && (row == vMax - 1 || !opaque[u][row + 1]), (start, length) ->
+                        builder.add(buildSideQuad(format, transform, Direction.DOWN, tintIndex, color, sprite, start, row + 1, length)));
+            }
 
-        for (int u = 0; u < uMax; u++) {
-            builder.add(buildSideQuad(format, transform, Direction.EAST, tintIndex, color, sprite, u + 1, 0, vMax));
-            builder.add(buildSideQuad(format, transform, Direction.WEST, tintIndex, color, sprite, u, 0, vMax));
+            for (int u = 0; u < uMax; u++) {
+                final int column = u;
+                addRuns(vMax, v -> opaque[column][v] && (column == uMax - 1 || !opaque[column + 1][v]), (start, length) ->
+                        builder.add(buildSideQuad(format, transform, Direction.EAST, tintIndex, color, sprite, column + 1, start, length)));
+                addRuns(vMax, v -> opaque[column][v] && (column == 0 || !opaque[column - 1][v]), (start, length) ->
+                        builder.add(buildSideQuad(format, transform, Direction.WEST, tintIndex, color, sprite, column, start, length)));
+            }
+        } else {
+            for (int v = 0; v < vMax; v++) {
+                builder.add(buildSideQuad(format, transform, Direction.UP, tintIndex, color, sprite, 0, v, uMax));
+                builder.add(buildSideQuad(format, transform, Direction.DOWN, tintIndex, color, sprite, 0, v + 1, uMax));
+            }
+
+            for (int u = 0; u < uMax; u++) {
+                builder.add(buildSideQuad(format, transform, Direction.EAST, tintIndex, color, sprite, u + 1, 0, vMax));
+                builder.add(buildSideQuad(format, transform, Direction.WEST, tintIndex, color, sprite, u, 0, vMax));
+            }
         }
 
         // front
@@ -135,6 +189,46 @@ public final class ModularItemModel implements IUnbakedModel {
     }
 
 
+    /**
+     * Reads the opacity of the first frame of the given sprite, indexed as [u][v] where v counts rows from the bottom of the
+     * sprite to match model coordinates.
+     *
+     * @return an opacity array, or null if the pixel data of the sprite is not available
+     */
+    private static boolean[][] getOpacity(TextureAtlasSprite sprite) {
+        int width = sprite.getWidth();
+        int height = sprite.getHeight();
+
+        try {
+            boolean[][] opaque = new boolean[width][height];
+            for (int u = 0; u < width; u++) {
+                for (int v = 0; v < height; v++) {
+                    opaque[u][v] = !sprite.isPixelTransparent(0, u, height - 1 - v);
+                }
+            }
+            return opaque;
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    /**
+     * Finds runs of consecutive indices matching the given predicate and passes the start and length of each run to the
+     * consumer.
+     */
+    private static void addRuns(int size, IntPredicate predicate, BiConsumer<Integer, Integer> consumer) {
+        int start = -1;
+        for (int i = 0; i <= size; i++) {
+            boolean match = i < size && predicate.test(i);
+            if (match && start == -1) {
+                start = i;
+            } else if (!match && start != -1) {
+                consumer.accept(start, i - start);
+                start = -1;
+            }
+        }
+    }
+
     private static BakedQuad buildSideQuad(VertexFormat format, Optional<TRSRTransformation> transform, Direction side, int tintIndex,
             int color, TextureAtlasSprite sprite, int u, int v, int size) {
 
@@ -256,4 +350,54 @@ public final class ModularItemModel implements IUnbakedModel {
             }
         }
     }
+
+    private static class LayerKey {
+        private final ResourceLocation location;
+        private final int layerIndex;
+        private final int tint;
+        private final VertexFormat format;
+        private final Optional<TRSRTransformation> transform;
+
+        private final int hash;
+
+        LayerKey(ResourceLocation location, int layerIndex, int tint, VertexFormat format, Optional<TRSRTransformation> transform) {
+            this.location = location;
+            this.layerIndex = layerIndex;
+            this.tint = tint;
+            this.format = format;
+            this.transform = transform;
+
+            hash = Objects.hash(location, layerIndex, tint, format, transform);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+
+            LayerKey that = (LayerKey) o;
+            return layerIndex == that.layerIndex && tint == that.tint && Objects.equals(location, that.location)
+                    && format.equals(that.format) && transform.equals(that.transform);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static class LayerQuads {
+        private final TextureAtlasSprite sprite;
+        private final List<BakedQuad> quads;
+
+        LayerQuads(TextureAtlasSprite sprite, List<BakedQuad> quads) {
+            this.sprite = sprite;
+            this.quads = quads;
+        }
+    }
 }
\ No newline at end of file
@@ -40,6 +40,9 @@ public class ModularModelLoader {
     }
 
     public static void loadModels(ModelBakeEvent event) {
+        // sprites have been restitched, quads built from the previous sprites are no longer of any use
+        ModularItemModel.invalidateLayerCache();
+        ModularOverrideList.invalidateAll();
 
         //        TextureAtlasSprite particleSprite = ModelLoader.defaultTextureGetter().apply(new ResourceLocation(unbaked.resolveTextureName("particle")));
         items.forEach(item -> {
@@ -2,9 +2,11 @@ package se.mickelus.tetra.client.model;
 
 import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import net.minecraft.client.renderer.model.BlockModel;
 import net.minecraft.client.renderer.model.IBakedModel;
 import net.minecraft.client.renderer.model.ItemCameraTransforms;
@@ -18,6 +20,7 @@ import net.minecraft.client.renderer.vertex.VertexFormat;
 import net.minecraft.entity.LivingEntity;
 import net.minecraft.item.ItemStack;
 import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.Direction;
 import net.minecraft.util.ResourceLocation;
 import net.minecraft.world.World;
 import net.minecraftforge.client.model.BasicState;
@@ -27,25 +30,61 @@ import net.minecraftforge.client.model.PerspectiveMapWrapper;
 import net.minecraftforge.client.model.SimpleModelState;
 import net.minecraftforge.common.model.IModelState;
 import net.minecraftforge.common.model.TRSRTransformation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.mickelus.tetra.ConfigHandler;
 import se.mickelus.tetra.NBTHelper;
+import se.mickelus.tetra.client.RenderStatistics;
 import se.mickelus.tetra.items.ItemModular;
+import se.mickelus.tetra.items.ItemModularView;
 import se.mickelus.tetra.module.data.ModuleModel;
 
 import javax.annotation.Nullable;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
+import java.util.Random;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 public class ModularOverrideList extends ItemOverrideList {
+    private static final Logger logger = LogManager.getLogger();
 
+    // models are baked off the render thread, the queue is bounded so that bakes are dropped (and retried on a later
+    // frame) rather than piling up when a lot of new items come into view at once
+    private static final ThreadPoolExecutor bakeExecutor = new ThreadPoolExecutor(1, 2, 30, TimeUnit.SECONDS,
+            new ArrayBlockingQueue<>(256),
+            new ThreadFactoryBuilder().setNameFormat("tetra-model-bake-%d").setDaemon(true).build(),
+            new ThreadPoolExecutor.AbortPolicy());
+
+    private static final AtomicInteger queueDepth = new AtomicInteger();
+
+    // all override lists, used to aggregate cache statistics
+    private static final Set<ModularOverrideList> instances = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<>()));
+
+    // models are weighed by their quad count as that's what makes up most of their memory footprint, they expire when they
+    // have not been rendered for a while and values are soft so that the cache is cleared rather than running out of memory
     private Cache<CacheKey, IBakedModel> bakedModelCache = CacheBuilder.newBuilder()
+            .maximumWeight(ConfigHandler.modelCacheQuads.get())
+            .weigher((CacheKey key, IBakedModel model) -> Math.max(1, countQuads(model)))
+            .expireAfterAccess(ConfigHandler.modelCacheExpiry.get(), TimeUnit.SECONDS)
+            .softValues()
+            .recordStats()
+            .build();
+
+    // keys that are currently being baked, used to avoid baking the same model several times
+    private final Set<CacheKey> pendingBakes = ConcurrentHashMap.newKeySet();
+
+    // the model most recently shown for a stack, used as a placeholder while a new model for the stack is being baked
+    private final Cache<CompoundNBT, IBakedModel> lastModels = CacheBuilder.newBuilder()
+            .weakKeys()
             .maximumSize(1000)
-            .expireAfterWrite(5, TimeUnit.MINUTES)
             .build();
 
 
@@ -57,6 +96,8 @@ public class ModularOverrideList extends ItemOverrideList {
 
         this.bakery = bakery;
         this.unbaked = unbaked;
+
+        instances.add(this);
     }
 
     @Nullable
@@ -67,23 +108,114 @@ public class ModularOverrideList extends ItemOverrideList {
         if(!baseTag.isEmpty()) {
             CacheKey key = getCacheKey(stack, originalModel);
 
-            try {
-                result = bakedModelCache.get(key, () -> getOverrideModel(stack));
-            } catch(ExecutionException e) {
-                // do nothing, return original model
-                e.printStackTrace();
+            IBakedModel model = bakedModelCache.getIfPresent(key);
+            if (model != null) {
+                lastModels.put(baseTag, model);
+                result = model;
+            } else {
+                scheduleBake(key, stack);
+
+                IBakedModel placeholder = lastModels.getIfPresent(baseTag);
+                if (placeholder != null) {
+                    result = placeholder;
+                }
             }
         }
         return result;
     }
 
+    /**
+     * Bakes the model for the given stack on a worker thread, the baked model is available from the cache once the bake is
+     * done. Models are resolved from the stack here, as the stack may be modified while the bake is running.
+     */
+    private void scheduleBake(CacheKey key, ItemStack itemStack) {
+        // skip resolving the models of the stack when the bake would be rejected anyway
+        if (bakeExecutor.getQueue().remainingCapacity() == 0 || !pendingBakes.add(key)) {
+            return;
+        }
+
+        List<ModuleModel> models = ((ItemModular) itemStack.getItem()).getModels(itemStack);
+        try {
+            queueDepth.incrementAndGet();
+            bakeExecutor.execute(() -> {
+                long start = System.nanoTime();
+                try {
+                    IBakedModel model = bake(models);
+                    bakedModelCache.put(key, model);
+                    RenderStatistics.recordQuads(countQuads(model));
+                } catch (Exception e) {
+                    logger.warn("Failed to bake modular item model", e);
+                } finally {
+                    RenderStatistics.recordBake(System.nanoTime() - start);
+
+                    queueDepth.decrementAndGet();
+                    pendingBakes.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // the queue is full, the bake will be attempted again on a later frame
+            queueDepth.decrementAndGet();
+            pendingBakes.remove(key);
+        }
+    }
+
+    /**
+     * Drops the baked models of all override lists. Called when models are reloaded, at which point the current override
+     * lists are replaced and their models are no longer of use.
+     */
+    public static void invalidateAll() {
+        synchronized (instances) {
+            instances.forEach(instance -> {
+                instance.bakedModelCache.invalidateAll();
+                instance.lastModels.invalidateAll();
+            });
+            instances.clear();
+        }
+    }
+
+    /**
+     * @return the number of models that are waiting to be baked or currently being baked
+     */
+    public static int getQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * @return the combined statistics for the baked model caches of all override lists
+     */
+    public static CacheStats getCacheStats() {
+        synchronized (instances) {
+            return instances.stream()
+                    .map(instance -> instance.bakedModelCache.stats())
+                    .reduce(new CacheStats(0, 0, 0, 0, 0, 0), CacheStats::plus);
+        }
+    }
+
+    /**
+     * @return the combined number of models in the baked model caches of all override lists
+     */
+    public static long getCacheSize() {
+        synchronized (instances) {
+            return instances.stream()
+                    .mapToLong(instance -> instance.bakedModelCache.size())
+                    .sum();
+        }
+    }
+
+    private static int countQuads(IBakedModel model) {
+        Random random = new Random();
+        int count = model.getQuads(null, null, random).size();
+        for (Direction direction : Direction.values()) {
+            count += model.getQuads(null, direction, random).size();
+        }
+        return count;
+    }
+
     protected CacheKey getCacheKey(ItemStack stack, IBakedModel original) {
         return new CacheKey(original, stack);
     }
 
-    protected IBakedModel getOverrideModel(ItemStack itemStack) {
-        ItemModular item  = (ItemModular) itemStack.getItem();
-
+    protected IBakedModel bake(List<ModuleModel> models) {
         // todo 1.14: look at ItemModelGenerator
         ItemCameraTransforms transforms = unbaked.getAllTransforms();
         Map<ItemCameraTransforms.TransformType, TRSRTransformation> tMap = Maps.newHashMap();
@@ -98,8 +230,6 @@ public class ModularOverrideList extends ItemOverrideList {
 //        return unbaked.bake(bakery, ModelLoader.defaultTextureGetter(), new BasicState(unbaked.getDefaultState(), false),
 //                DefaultVertexFormats.ITEM);
 
-        List<ModuleModel> models = item.getModels(itemStack);
-
          return new ModularItemModel(models).bake(bakery, ModelLoader.defaultTextureGetter(),
                  perState, DefaultVertexFormats.ITEM);
     }
@@ -107,14 +237,23 @@ public class ModularOverrideList extends ItemOverrideList {
     protected static class CacheKey {
 
         final IBakedModel parent;
-        final String data;
+        final Object data;
 
         protected CacheKey(IBakedModel parent, ItemStack stack) {
             this.parent = parent;
             this.data = getDataFromStack(stack);
         }
 
-        protected String getDataFromStack(ItemStack stack) {
+        /**
+         * Only what affects the models of the stack is part of the key, so that changes to durability, honing progress and
+         * similar does not cause the model to be rebaked. Model configurations are interned and hash cheaply.
+         */
+        protected Object getDataFromStack(ItemStack stack) {
+            ItemModularView view = ItemModularView.get(stack);
+            if (view != null) {
+                return view.getModelConfiguration();
+            }
+
             return NBTHelper.getTag(stack).toString();
         }
 
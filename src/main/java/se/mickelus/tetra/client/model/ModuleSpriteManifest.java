@@ -0,0 +1,98 @@
+package se.mickelus.tetra.client.model;
+
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.resources.ClientResourcePackInfo;
+import net.minecraft.resources.IResourcePack;
+import net.minecraft.resources.ResourcePackType;
+import net.minecraft.util.ResourceLocation;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.mickelus.tetra.TetraMod;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds the module textures that should be stitched onto the item atlas. Walking the texture directories of every resource
+ * pack is slow, so packs may provide a manifest listing their module sprites (tetra's own manifest is generated by the
+ * spriteManifest gradle task). Packs that provide tetra resources but no manifest are scanned.
+ */
+public class ModuleSpriteManifest {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final String textureDirectory = "textures/items/module";
+    private static final ResourceLocation manifestLocation = new ResourceLocation(TetraMod.MOD_ID, textureDirectory + "/sprites.json");
+
+    /**
+     * @return the locations of all module sprites, relative to the textures directory
+     */
+    public static Collection<ResourceLocation> getSprites() {
+        long start = System.nanoTime();
+        Set<ResourceLocation> sprites = new HashSet<>();
+        int manifestCount = 0;
+        int scanCount = 0;
+
+        try {
+            for (ClientResourcePackInfo packInfo : Minecraft.getInstance().getResourcePackList().getEnabledPacks()) {
+                try (IResourcePack pack = packInfo.getResourcePack()) {
+                    if (!pack.getResourceNamespaces(ResourcePackType.CLIENT_RESOURCES).contains(TetraMod.MOD_ID)) {
+                        continue;
+                    }
+
+                    if (pack.resourceExists(ResourcePackType.CLIENT_RESOURCES, manifestLocation)) {
+                        readManifest(pack, sprites);
+                        manifestCount++;
+                    } else {
+                        scanPack(pack, sprites);
+                        scanCount++;
+                    }
+                }
+            }
+        } catch (Exception e) {
+            logger.warn("Failed to read module sprite manifests, falling back to scanning all resources", e);
+            sprites.clear();
+            scanResources(sprites);
+        }
+
+        logger.info("Found {} module sprites in {} ms ({} packs with manifests, {} packs scanned)", sprites.size(),
+                (System.nanoTime() - start) / 1000000, manifestCount, scanCount);
+
+        return sprites;
+    }
+
+    private static void readManifest(IResourcePack pack, Set<ResourceLocation> sprites) throws Exception {
+        try (InputStream stream = pack.getResourceStream(ResourcePackType.CLIENT_RESOURCES, manifestLocation);
+             Reader reader = new InputStreamReader(stream, StandardCharsets.UTF_8)) {
+            for (JsonElement element : new JsonParser().parse(reader).getAsJsonArray()) {
+                sprites.add(new ResourceLocation(TetraMod.MOD_ID, element.getAsString()));
+            }
+        }
+    }
+
+    private static void scanPack(IResourcePack pack, Set<ResourceLocation> sprites) {
+        pack.getAllResourceLocations(ResourcePackType.CLIENT_RESOURCES, textureDirectory, Integer.MAX_VALUE, s -> s.endsWith(".png"))
+                .stream()
+                .filter(resourceLocation -> TetraMod.MOD_ID.equals(resourceLocation.getNamespace()))
+                .map(ModuleSpriteManifest::toSpriteLocation)
+                .forEach(sprites::add);
+    }
+
+    private static void scanResources(Set<ResourceLocation> sprites) {
+        Minecraft.getInstance().getResourceManager().getAllResourceLocations(textureDirectory, s -> s.endsWith(".png")).stream()
+                .filter(resourceLocation -> TetraMod.MOD_ID.equals(resourceLocation.getNamespace()))
+                .map(ModuleSpriteManifest::toSpriteLocation)
+                .forEach(sprites::add);
+    }
+
+    private static ResourceLocation toSpriteLocation(ResourceLocation rl) {
+        // 9 is the length of "textures/" & 4 is the length of ".png"
+        return new ResourceLocation(rl.getNamespace(), rl.getPath().substring(9, rl.getPath().length() - 4));
+    }
+}
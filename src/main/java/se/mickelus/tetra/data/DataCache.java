@@ -0,0 +1,107 @@
+package se.mickelus.tetra.data;
+
+import net.minecraftforge.fml.loading.FMLPaths;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Client side, on disk cache of data payloads received from servers. Payloads are stored by data store directory and hash,
+ * a few payloads are kept per directory so that players moving between servers with different data still hit the cache.
+ */
+public class DataCache {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final int maxEntriesPerDirectory = 8;
+
+    private static final Path cacheDirectory = FMLPaths.GAMEDIR.get().resolve("tetra").resolve("data_cache");
+
+    /**
+     * @return the cached payload for the given directory and hash, or null if no such payload has been cached
+     */
+    public static byte[] read(String directory, String hash) {
+        Path path = getPath(directory, hash);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+
+        try {
+            byte[] payload = Files.readAllBytes(path);
+
+            // the modification time is used to tell which entries have been used most recently
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return payload;
+        } catch (IOException e) {
+            logger.warn("Failed to read cached {} data", directory, e);
+            return null;
+        }
+    }
+
+    /**
+     * Removes a cached payload, used when a cached payload turns out to be corrupt.
+     */
+    public static void delete(String directory, String hash) {
+        try {
+            Files.deleteIfExists(getPath(directory, hash));
+        } catch (IOException e) {
+            logger.warn("Failed to remove cached {} data", directory, e);
+        }
+    }
+
+    /**
+     * Caches the given payload, dropping the least recently used payloads for the directory if there are too many.
+     */
+    public static void write(String directory, String hash, byte[] payload) {
+        try {
+            Files.createDirectories(cacheDirectory);
+
+            // written to a temporary file first so that an interrupted write does not leave a partial payload behind
+            Path temporary = Files.createTempFile(cacheDirectory, directory, ".tmp");
+            Files.write(temporary, payload);
+            Files.move(temporary, getPath(directory, hash), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+            prune(directory);
+        } catch (IOException e) {
+            logger.warn("Failed to cache {} data", directory, e);
+        }
+    }
+
+    private static void prune(String directory) throws IOException {
+        List<Path> entries;
+        try (Stream<Path> paths = Files.list(cacheDirectory)) {
+            entries = paths
+                    .filter(path -> path.getFileName().toString().startsWith(directory + "-"))
+                    .sorted(Comparator.comparing(DataCache::getLastModified).reversed())
+                    .collect(Collectors.toList());
+        }
+
+        for (Path path : entries.subList(Math.min(maxEntriesPerDirectory, entries.size()), entries.size())) {
+            Files.deleteIfExists(path);
+        }
+    }
+
+    private static FileTime getLastModified(Path path) {
+        try {
+            return Files.getLastModifiedTime(path);
+        } catch (IOException e) {
+            return FileTime.fromMillis(0);
+        }
+    }
+
+    private static Path getPath(String directory, String hash) {
+        if (!DataSyncCodec.isValidHash(hash)) {
+            throw new IllegalArgumentException("Invalid data hash: " + hash);
+        }
+
+        return cacheDirectory.resolve(directory + "-" + hash + ".bin");
+    }
+}
@@ -0,0 +1,112 @@
+package se.mickelus.tetra.data;
+
+import com.google.gson.JsonElement;
+import net.minecraft.util.ResourceLocation;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The files that were added, changed or removed when a data store was reloaded, passed to reload listeners so that they can
+ * update only what's affected by the reload. The first time data is loaded everything is considered affected, including
+ * locations that have no data.
+ */
+public class DataChangeSet {
+    private final Set<ResourceLocation> added;
+    private final Set<ResourceLocation> changed;
+    private final Set<ResourceLocation> removed;
+    private final boolean initial;
+
+    public DataChangeSet(Set<ResourceLocation> added, Set<ResourceLocation> changed, Set<ResourceLocation> removed,
+            boolean initial) {
+        this.initial = initial;
+        this.added = Collections.unmodifiableSet(added);
+        this.changed = Collections.unmodifiableSet(changed);
+        this.removed = Collections.unmodifiableSet(removed);
+    }
+
+    /**
+     * Compares two sets of raw data file by file.
+     *
+     * @param previous The previous raw data, null if no data has been loaded before
+     * @param current The new raw data
+     * @return the changes between the previous and the current data
+     */
+    public static DataChangeSet diff(Map<ResourceLocation, JsonElement> previous, Map<ResourceLocation, JsonElement> current) {
+        Map<ResourceLocation, JsonElement> previousData = previous != null ? previous : Collections.emptyMap();
+        Set<ResourceLocation> added = new HashSet<>();
+        Set<ResourceLocation> changed = new HashSet<>();
+        Set<ResourceLocation> removed = new HashSet<>();
+
+        current.forEach((location, json) -> {
+            JsonElement previousJson = previousData.get(location);
+            if (previousJson == null) {
+                added.add(location);
+            } else if (!previousJson.equals(json)) {
+                changed.add(location);
+            }
+        });
+
+        previousData.keySet().stream()
+                .filter(location -> !current.containsKey(location))
+                .forEach(removed::add);
+
+        return new DataChangeSet(added, changed, removed, previous == null);
+    }
+
+    public Set<ResourceLocation> getAdded() {
+        return added;
+    }
+
+    public Set<ResourceLocation> getChanged() {
+        return changed;
+    }
+
+    public Set<ResourceLocation> getRemoved() {
+        return removed;
+    }
+
+    /**
+     * @return true if this is the first time data is loaded
+     */
+    public boolean isInitial() {
+        return initial;
+    }
+
+    public boolean isEmpty() {
+        return !initial && added.isEmpty() && changed.isEmpty() && removed.isEmpty();
+    }
+
+    /**
+     * @return true if the file at the given location was added, changed or removed
+     */
+    public boolean affects(ResourceLocation location) {
+        return initial || added.contains(location) || changed.contains(location) || removed.contains(location);
+    }
+
+    /**
+     * @return true if any of the files at the given locations were added, changed or removed
+     */
+    public boolean affectsAny(Collection<ResourceLocation> locations) {
+        return locations.stream().anyMatch(this::affects);
+    }
+
+    /**
+     * @return true if the file at the given location was added or changed, i.e. if its data has to be bound again
+     */
+    public boolean isModified(ResourceLocation location) {
+        return added.contains(location) || changed.contains(location);
+    }
+
+    @Override
+    public String toString() {
+        if (initial) {
+            return "initial load";
+        }
+
+        return added.size() + " added, " + changed.size() + " changed, " + removed.size() + " removed";
+    }
+}
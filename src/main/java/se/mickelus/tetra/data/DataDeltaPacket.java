@@ -0,0 +1,65 @@
+package se.mickelus.tetra.data;
+
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.ResourceLocation;
+import se.mickelus.tetra.network.AbstractPacket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sent to clients when data is reloaded, holds the files that were added or changed and the locations of removed files. The
+ * delta only applies to the data identified by the base hash, clients holding other data request the full data instead.
+ */
+public class DataDeltaPacket extends AbstractPacket {
+
+    private String directory;
+    private String baseHash;
+    private String hash;
+    private byte[] payload;
+    private List<ResourceLocation> removed;
+
+    public DataDeltaPacket() {}
+
+    public DataDeltaPacket(String directory, String baseHash, String hash, byte[] payload, List<ResourceLocation> removed) {
+        this.directory = directory;
+        this.baseHash = baseHash;
+        this.hash = hash;
+        this.payload = payload;
+        this.removed = removed;
+    }
+
+    @Override
+    public void toBytes(PacketBuffer buffer) {
+        buffer.writeString(directory);
+        buffer.writeString(baseHash);
+        buffer.writeString(hash);
+        buffer.writeByteArray(payload);
+        buffer.writeVarInt(removed.size());
+        removed.forEach(buffer::writeResourceLocation);
+    }
+
+    @Override
+    public void fromBytes(PacketBuffer buffer) {
+        directory = buffer.readString();
+        baseHash = buffer.readString(64);
+        hash = buffer.readString(64);
+        if (!DataSyncCodec.isValidHash(baseHash) || !DataSyncCodec.isValidHash(hash)) {
+            throw new DecoderException("Invalid hash for " + directory + " delta");
+        }
+
+        payload = buffer.readByteArray();
+        int count = buffer.readVarInt();
+        removed = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            removed.add(buffer.readResourceLocation());
+        }
+    }
+
+    @Override
+    public void handle(PlayerEntity player) {
+        DataManager.instance.onDeltaReceived(directory, baseHash, hash, payload, removed);
+    }
+}
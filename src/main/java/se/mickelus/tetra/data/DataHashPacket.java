@@ -0,0 +1,53 @@
+package se.mickelus.tetra.data;
+
+import io.netty.handler.codec.DecoderException;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import se.mickelus.tetra.network.AbstractPacket;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sent to clients on login and when data is reloaded, lists the hash of the data held by each data store. Clients request the
+ * data for any hash they do not have a cached payload for.
+ */
+public class DataHashPacket extends AbstractPacket {
+
+    private Map<String, String> hashes;
+
+    public DataHashPacket() {}
+
+    public DataHashPacket(Map<String, String> hashes) {
+        this.hashes = hashes;
+    }
+
+    @Override
+    public void toBytes(PacketBuffer buffer) {
+        buffer.writeVarInt(hashes.size());
+        hashes.forEach((directory, hash) -> {
+            buffer.writeString(directory);
+            buffer.writeString(hash);
+        });
+    }
+
+    @Override
+    public void fromBytes(PacketBuffer buffer) {
+        int count = buffer.readVarInt();
+        hashes = new HashMap<>();
+        for (int i = 0; i < count; i++) {
+            String directory = buffer.readString();
+            String hash = buffer.readString(64);
+            if (!DataSyncCodec.isValidHash(hash)) {
+                throw new DecoderException("Invalid hash for " + directory + " data");
+            }
+
+            hashes.put(directory, hash);
+        }
+    }
+
+    @Override
+    public void handle(PlayerEntity player) {
+        DataManager.instance.onHashesReceived(hashes);
+    }
+}
@@ -1,5 +1,6 @@
 package se.mickelus.tetra.data;
 
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.google.gson.*;
 import net.minecraft.advancements.criterion.ItemPredicate;
 import net.minecraft.block.Block;
@@ -16,6 +17,8 @@ import net.minecraft.world.storage.loot.functions.ILootFunction;
 import net.minecraft.world.storage.loot.functions.LootFunctionManager;
 import net.minecraftforge.event.entity.player.PlayerEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.LogicalSide;
+import net.minecraftforge.fml.LogicalSidedProvider;
 import net.minecraftforge.fml.event.server.FMLServerAboutToStartEvent;
 import net.minecraftforge.forgespi.Environment;
 import org.apache.logging.log4j.LogManager;
@@ -32,9 +35,23 @@ import se.mickelus.tetra.module.data.EnchantmentMapping;
 import se.mickelus.tetra.module.improvement.DestabilizationEffect;
 import se.mickelus.tetra.module.schema.Material;
 import se.mickelus.tetra.module.schema.SchemaDefinition;
+import se.mickelus.tetra.network.PacketHandler;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 public class DataManager {
 
@@ -79,6 +96,16 @@ public class DataManager {
     private DataStore[] dataStores = new DataStore[] { moduleData, improvementData, enchantmentData, tweakData, synergyData, geodeData,
             replacementData, schemaData, predicateData, actionData, destabilizationData };
 
+    // chunks of synced data per directory, held until all chunks for a directory have been received
+    private Map<String, byte[][]> receivedChunks = new HashMap<>();
+
+    // synced data is decoded & bound on this thread to avoid stalling the client while joining a server, see enqueueLoad
+    private final ExecutorService syncExecutor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("tetra-data-sync-%d")
+            .setDaemon(true)
+            .build());
+    private CompletableFuture<Void> syncQueue = CompletableFuture.completedFuture(null);
+
     public static DataManager instance;
 
     public DataManager() {
@@ -97,30 +124,195 @@ public class DataManager {
     @SubscribeEvent
     public void playerConnected(PlayerEvent.PlayerLoggedInEvent event) {
         if (Environment.get().getDist().isDedicatedServer()) {
-            logger.info("Sending data to client: {}", event.getPlayer().getName());
-            for (DataStore dataStore : dataStores) {
-                dataStore.sendToPlayer((ServerPlayerEntity) event.getPlayer());
+            logger.info("Sending data hashes to client: {}", event.getPlayer().getName());
+            Map<String, String> hashes = Arrays.stream(dataStores)
+                    .filter(dataStore -> dataStore.getSyncHash() != null)
+                    .collect(Collectors.toMap(DataStore::getDirectory, DataStore::getSyncHash));
+            PacketHandler.sendTo(new DataHashPacket(hashes), (ServerPlayerEntity) event.getPlayer());
+        }
+    }
+
+    /**
+     * Sends the data of the stores in the given directories to a player, called when the player does not have the data cached.
+     */
+    public void sendData(ServerPlayerEntity player, List<String> directories) {
+        logger.info("Sending data to client: {} ({})", player.getName().getString(), String.join(", ", directories));
+        directories.forEach(directory -> getDataStore(directory).ifPresent(dataStore -> dataStore.sendToPlayer(player)));
+    }
+
+    /**
+     * Loads data from the client cache for all stores where the hash is known, and requests data from the server for the rest.
+     * Stores that already hold data for the given hash are left as is.
+     */
+    public void onHashesReceived(Map<String, String> hashes) {
+        enqueueLoad(() -> {
+            List<Runnable> loaded = new ArrayList<>();
+            List<String> missing = new ArrayList<>();
+
+            for (Map.Entry<String, String> entry : hashes.entrySet()) {
+                Optional<DataStore> dataStore = getDataStore(entry.getKey());
+                if (!dataStore.isPresent() || entry.getValue().equals(dataStore.get().getSyncHash())) {
+                    continue;
+                }
+
+                byte[] payload = DataCache.read(entry.getKey(), entry.getValue());
+                Runnable load = payload != null ? preparePayload(dataStore.get(), payload, entry.getValue()) : null;
+                if (load != null) {
+                    loaded.add(load);
+                } else {
+                    if (payload != null) {
+                        DataCache.delete(entry.getKey(), entry.getValue());
+                    }
+                    missing.add(entry.getKey());
+                }
+            }
+
+            logger.info("Loaded {} data stores from cache, requesting {} from server", loaded.size(), missing.size());
+
+            return () -> {
+                loaded.forEach(Runnable::run);
+
+                if (!missing.isEmpty()) {
+                    PacketHandler.sendToServer(new RequestDataPacket(missing));
+                }
+            };
+        });
+    }
+
+    public void onDataRecieved(String directory, int index, int count, byte[] chunk) {
+        if (count <= 0 || count > DataSyncCodec.maxChunks || index < 0 || index >= count || chunk.length > DataSyncCodec.chunkSize) {
+            logger.warn("Discarding {} data, received invalid chunk {} of {} ({} bytes)", directory, index, count, chunk.length);
+            receivedChunks.remove(directory);
+            return;
+        }
+
+        byte[][] chunks = receivedChunks.get(directory);
+        if (index == 0 || chunks == null || chunks.length != count) {
+            chunks = new byte[count][];
+            receivedChunks.put(directory, chunks);
+        }
+
+        chunks[index] = chunk;
+
+        if (index == count - 1) {
+            receivedChunks.remove(directory);
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            for (byte[] bytes : chunks) {
+                if (bytes == null) {
+                    logger.warn("Discarding {} data, chunks are missing", directory);
+                    return;
+                }
+                output.write(bytes, 0, bytes.length);
+            }
+
+            byte[] payload = output.toByteArray();
+            getDataStore(directory).ifPresent(dataStore -> enqueueLoad(() -> preparePayload(dataStore, payload, null)));
+        }
+    }
+
+    /**
+     * Drops chunks of data that has only been partially received, called when the client disconnects from a server.
+     */
+    public void onDisconnect() {
+        receivedChunks.clear();
+    }
+
+    /**
+     * Applies a delta sent when data is reloaded on the server. The full data is requested instead if the client does not
+     * hold the data the delta is based on, or if the data does not match the server data once the delta has been applied.
+     */
+    public void onDeltaReceived(String directory, String baseHash, String hash, byte[] payload, List<ResourceLocation> removed) {
+        getDataStore(directory).ifPresent(dataStore -> enqueueLoad(() -> {
+            if (baseHash.equals(dataStore.getSyncHash())) {
+                try {
+                    Map<ResourceLocation, JsonElement> modified = DataSyncCodec.deserialize(DataSyncCodec.decompress(payload));
+                    Map<ResourceLocation, JsonElement> data = dataStore.applyDelta(modified, removed);
+
+                    byte[] serialized = DataSyncCodec.serialize(data);
+                    if (hash.equals(DataSyncCodec.hash(serialized))) {
+                        DataStore.SyncedData synced = dataStore.prepareSynced(data);
+                        DataCache.write(directory, hash, DataSyncCodec.compress(serialized));
+                        return () -> dataStore.applySynced(synced, hash);
+                    }
+
+                    logger.info("Applying {} delta did not produce the expected data, requesting full data", directory);
+                } catch (IOException | RuntimeException e) {
+                    logger.warn("Failed to apply {} delta", directory, e);
+                }
+            }
+
+            return () -> PacketHandler.sendToServer(new RequestDataPacket(Collections.singletonList(directory)));
+        }));
+    }
+
+    /**
+     * Runs the given task on the sync worker thread, the task does the heavy lifting of loading synced data (decoding,
+     * binding, cache access) and returns an action that is then run on the main thread to make the data available. Tasks
+     * are run in order and each task runs after the main thread action of the previous task, so that every task sees the
+     * data applied by the tasks before it.
+     *
+     * @param task Returns the action to run on the main thread, or null if there is nothing to apply
+     */
+    private void enqueueLoad(Supplier<Runnable> task) {
+        Executor mainThread = LogicalSidedProvider.WORKQUEUE.get(LogicalSide.CLIENT);
+        syncQueue = syncQueue
+                .thenComposeAsync(ignored -> {
+                    Runnable action = task.get();
+                    return action != null ? CompletableFuture.runAsync(action, mainThread) : CompletableFuture.<Void>completedFuture(null);
+                }, syncExecutor)
+                .exceptionally(throwable -> {
+                    logger.warn("Failed to load synced data", throwable);
+                    return null;
+                });
+    }
+
+    /**
+     * Decodes and binds a payload, should be called on the sync worker thread. Payloads that are not from the cache are
+     * written to the cache.
+     *
+     * @param expectedHash The hash the data is expected to have, the data is not loaded if it does not match. Null for
+     *                     payloads received from the server.
+     * @return an action that applies the data to the store, or null if the payload could not be loaded
+     */
+    private Runnable preparePayload(DataStore dataStore, byte[] payload, String expectedHash) {
+        try {
+            byte[] serialized = DataSyncCodec.decompress(payload);
+            String hash = DataSyncCodec.hash(serialized);
+            if (expectedHash != null && !expectedHash.equals(hash)) {
+                logger.warn("Discarding {} data, hash does not match", dataStore.getDirectory());
+                return null;
+            }
+
+            DataStore.SyncedData synced = dataStore.prepareSynced(DataSyncCodec.deserialize(serialized));
+
+            if (expectedHash == null) {
+                DataCache.write(dataStore.getDirectory(), hash, payload);
             }
+
+            return () -> dataStore.applySynced(synced, hash);
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Failed to decode {} data", dataStore.getDirectory(), e);
+            return null;
         }
     }
 
-    public void onDataRecieved(String directory, Map<ResourceLocation, String> data) {
-        Arrays.stream(dataStores)
+    private Optional<DataStore> getDataStore(String directory) {
+        return Arrays.stream(dataStores)
                 .filter(dataStore -> dataStore.getDirectory().equals(directory))
-                .forEach(dataStore -> dataStore.loadFromPacket(data));
+                .findFirst();
     }
 
     /**
-     * Wrapped data getter for synergy data so that data may be ordered in such a way that it's efficiently compared. Skipping this step
-     * would cause items to incorrectly gain synergies.
+     * Wrapped data getter for synergy data, items compile synergies into a matcher when they are reloaded so the order of
+     * modules and variants within a synergy does not matter.
      * @param path The path to the synergy data
-     * @return An array of synergy data
+     * @return An array of synergy data, empty if there is no synergy data at the given path
      */
     public SynergyData[] getSynergyData(String path) {
         SynergyData[] data = synergyData.getData(new ResourceLocation(TetraMod.MOD_ID, path));
-        for (SynergyData entry : data) {
-            Arrays.sort(entry.moduleVariants);
-            Arrays.sort(entry.modules);
+        if (data == null) {
+            return new SynergyData[0];
         }
         return data;
     }
@@ -20,19 +20,40 @@ import se.mickelus.tetra.network.PacketHandler;
 import java.io.*;
 import java.nio.charset.StandardCharsets;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 public class DataStore<V> extends ReloadListener<Map<ResourceLocation, JsonElement>> {
     private static final Logger logger = LogManager.getLogger();
     private static final int jsonExtLength = ".json".length();
 
+    // raw data is kept in this order both when it's prepared and when a delta is applied, the sync hash depends on the order
+    private static final Comparator<ResourceLocation> locationOrder = Comparator.naturalOrder();
+
+    // shared by all stores, reading and binding data files is spread over a few threads rather than all available cores as
+    // reloads run alongside other reload listeners
+    private static final ForkJoinPool parsePool = new ForkJoinPool(
+            Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1)),
+            pool -> {
+                ForkJoinWorkerThread thread = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+                thread.setName("tetra-data-" + thread.getPoolIndex());
+                thread.setContextClassLoader(DataStore.class.getClassLoader());
+                return thread;
+            },
+            null, false);
+
     private Gson gson;
     private String directory;
     private Class<V> dataClass;
 
     private Map<ResourceLocation, JsonElement> rawData;
+    private UpdateDataPacket[] syncPackets = new UpdateDataPacket[0];
+    // identifies the synced data, null if the data was not synced (e.g. when loaded by an integrated server)
+    private String syncHash;
     private Map<ResourceLocation, V> dataMap;
-    private List<Runnable> listeners;
+    private List<Consumer<DataChangeSet>> listeners;
 
     public DataStore(Gson gson, String directory, Class<V> dataClass) {
         this.gson = gson;
@@ -45,83 +66,203 @@ public class DataStore<V> extends ReloadListener<Map<ResourceLocation, JsonEleme
         listeners = new LinkedList<>();
     }
 
+    /**
+     * Reads and parses all data files in the directory of this store. Files are parsed in parallel, the returned map is
+     * ordered by the location of the data regardless of the order in which parsing completes.
+     */
     protected Map<ResourceLocation, JsonElement> prepare(IResourceManager resourceManager, IProfiler profiler) {
         logger.debug("Reading data for {} data store...", directory);
-        Map<ResourceLocation, JsonElement> map = Maps.newHashMap();
-        int i = this.directory.length() + 1;
-
-        for(ResourceLocation fullLocation : resourceManager.getAllResourceLocations(directory, rl -> rl.endsWith(".json"))) {
-            String path = fullLocation.getPath();
-            ResourceLocation location = new ResourceLocation(fullLocation.getNamespace(), path.substring(i, path.length() - jsonExtLength));
-
-            try (
-                    IResource resource = resourceManager.getResource(fullLocation);
-                    InputStream inputStream = resource.getInputStream();
-                    Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
-            ) {
-                JsonElement json;
-
-                if (dataClass.isArray()) {
-                    json = JSONUtils.fromJson(gson, reader, JsonArray.class);
-                } else {
-                    json = JSONUtils.fromJson(gson, reader, JsonElement.class);
-                }
-                if (json != null) {
-                    JsonElement duplicate = map.put(location, json);
-                    if (duplicate != null) {
-                        throw new IllegalStateException("Duplicate data file ignored with ID " + location);
-                    }
-                } else {
-                    logger.error("Couldn't load data file {} from {} as it's null or empty", location, fullLocation);
+        List<ResourceLocation> fullLocations = resourceManager.getAllResourceLocations(directory, rl -> rl.endsWith(".json")).stream()
+                .sorted()
+                .collect(Collectors.toList());
+
+        List<Map.Entry<ResourceLocation, JsonElement>> parsed = parsePool.submit(() -> fullLocations.parallelStream()
+                .map(fullLocation -> readFile(resourceManager, fullLocation))
+                .collect(Collectors.toList()))
+                .join();
+
+        Map<ResourceLocation, JsonElement> map = new TreeMap<>(locationOrder);
+        for (Map.Entry<ResourceLocation, JsonElement> entry : parsed) {
+            if (entry.getValue() != null) {
+                JsonElement duplicate = map.put(entry.getKey(), entry.getValue());
+                if (duplicate != null) {
+                    throw new IllegalStateException("Duplicate data file ignored with ID " + entry.getKey());
                 }
-            } catch (IllegalArgumentException | IOException | JsonParseException jsonparseexception) {
-                logger.error("Couldn't parse data file {} from {}", location, fullLocation, jsonparseexception);
             }
         }
 
-        return map;
+        return Maps.newLinkedHashMap(map);
+    }
+
+    /**
+     * @return an entry holding the location of the data and the parsed json, the json is null if the file could not be parsed
+     */
+    private Map.Entry<ResourceLocation, JsonElement> readFile(IResourceManager resourceManager, ResourceLocation fullLocation) {
+        String path = fullLocation.getPath();
+        ResourceLocation location = new ResourceLocation(fullLocation.getNamespace(),
+                path.substring(directory.length() + 1, path.length() - jsonExtLength));
+        JsonElement json = null;
+
+        try (
+                IResource resource = resourceManager.getResource(fullLocation);
+                InputStream inputStream = resource.getInputStream();
+                Reader reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+        ) {
+            if (dataClass.isArray()) {
+                json = JSONUtils.fromJson(gson, reader, JsonArray.class);
+            } else {
+                json = JSONUtils.fromJson(gson, reader, JsonElement.class);
+            }
+
+            if (json == null) {
+                logger.error("Couldn't load data file {} from {} as it's null or empty", location, fullLocation);
+            }
+        } catch (IllegalArgumentException | IOException | JsonParseException jsonparseexception) {
+            logger.error("Couldn't parse data file {} from {}", location, fullLocation, jsonparseexception);
+        }
+
+        return new AbstractMap.SimpleImmutableEntry<>(location, json);
     }
 
     @Override
     protected void apply(Map<ResourceLocation, JsonElement> splashList, IResourceManager resourceManager, IProfiler profiler) {
+        DataChangeSet changes = DataChangeSet.diff(rawData, splashList);
         rawData = splashList;
 
         if (Environment.get().getDist().isDedicatedServer()) {
-            PacketHandler.sendToAllPlayers(new UpdateDataPacket(directory, rawData));
+            if (syncHash == null || !changes.isEmpty()) {
+                String previousHash = syncHash;
+                byte[] serialized = DataSyncCodec.serialize(rawData);
+                syncHash = DataSyncCodec.hash(serialized);
+                syncPackets = DataSyncCodec.createPackets(directory, DataSyncCodec.compress(serialized));
+
+                sendChanges(previousHash, changes);
+            }
+        } else {
+            syncHash = null;
+        }
+
+        publish(splashList, changes, bind(splashList, changes));
+    }
+
+    /**
+     * Sends the changes from a reload to all players. Players that hold the previous data get a delta with only the changed
+     * files, players that don't (or deltas that are too large to fit in a single packet) fall back to requesting the data
+     * based on its hash.
+     */
+    private void sendChanges(String previousHash, DataChangeSet changes) {
+        if (previousHash != null) {
+            Map<ResourceLocation, JsonElement> modified = rawData.entrySet().stream()
+                    .filter(entry -> changes.isModified(entry.getKey()))
+                    .collect(Collectors.toMap(Map.Entry::getKey, Map.Entry::getValue, (a, b) -> a, LinkedHashMap::new));
+            byte[] payload = DataSyncCodec.compress(DataSyncCodec.serialize(modified));
+
+            if (payload.length <= DataSyncCodec.chunkSize) {
+                PacketHandler.sendToAllPlayers(new DataDeltaPacket(directory, previousHash, syncHash, payload,
+                        new ArrayList<>(changes.getRemoved())));
+                return;
+            }
         }
 
-        parseData(splashList);
+        PacketHandler.sendToAllPlayers(new DataHashPacket(Collections.singletonMap(directory, syncHash)));
     }
 
     public void sendToPlayer(ServerPlayerEntity player) {
-        PacketHandler.sendTo(new UpdateDataPacket(directory, rawData), player);
+        for (UpdateDataPacket packet : syncPackets) {
+            PacketHandler.sendTo(packet, player);
+        }
     }
 
-    public void loadFromPacket(Map<ResourceLocation, String> data) {
-        Map<ResourceLocation, JsonElement> splashList = data.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> {
-                            if (dataClass.isArray()) {
-                                return JSONUtils.fromJson(gson, entry.getValue(), JsonArray.class);
-                            } else {
-                                return JSONUtils.fromJson(gson, entry.getValue(), JsonElement.class);
-                            }
-                        }
-                ));
+    /**
+     * Binds data synced from the server, this does the heavy lifting of loading synced data and may be done off the main
+     * thread. The result has to be applied using {@link #applySynced(SyncedData, String)} before any other data is
+     * prepared for this store, as the changes are based on the data currently held by the store.
+     *
+     * @param data The raw data
+     * @return the bound data
+     */
+    public SyncedData<V> prepareSynced(Map<ResourceLocation, JsonElement> data) {
+        DataChangeSet changes = DataChangeSet.diff(rawData, data);
+        return new SyncedData<>(data, changes, bind(data, changes));
+    }
+
+    /**
+     * Makes synced data available and notifies listeners, has to be called on the main thread.
+     *
+     * @param synced Data prepared using {@link #prepareSynced(Map)}
+     * @param hash The hash of the serialized data
+     */
+    public void applySynced(SyncedData<V> synced, String hash) {
+        rawData = synced.rawData;
+        publish(synced.rawData, synced.changes, synced.data);
+        syncHash = hash;
+    }
+
+    /**
+     * Applies a delta to the current raw data of this store, does not load the resulting data.
+     *
+     * @param modified Files that were added or changed
+     * @param removed Locations of files that were removed
+     * @return the raw data with the delta applied, ordered by location in the same way as when data is prepared
+     */
+    public Map<ResourceLocation, JsonElement> applyDelta(Map<ResourceLocation, JsonElement> modified,
+            Collection<ResourceLocation> removed) {
+        Map<ResourceLocation, JsonElement> data = new TreeMap<>(locationOrder);
+        if (rawData != null) {
+            data.putAll(rawData);
+        }
 
-        parseData(splashList);
+        removed.forEach(data::remove);
+        data.putAll(modified);
+
+        return new LinkedHashMap<>(data);
+    }
+
+    /**
+     * @return a hash identifying the data that was synced, on the server this is the data sent to clients and on the client
+     * this is the data received from the server. Null if the data has not been synced.
+     */
+    public String getSyncHash() {
+        return syncHash;
     }
 
-    public void parseData(Map<ResourceLocation, JsonElement> splashList) {
-        logger.info("Loaded {} {}", String.format("%3d", splashList.values().size()), directory);
-        dataMap = splashList.entrySet().stream()
+    /**
+     * Binds the raw data of files that were added or changed, data for unchanged files is reused from the previous load.
+     */
+    private Map<ResourceLocation, V> bind(Map<ResourceLocation, JsonElement> splashList, DataChangeSet changes) {
+        Map<ResourceLocation, V> previous = dataMap;
+        if (changes.isEmpty()) {
+            return previous;
+        }
+
+        return parsePool.submit(() -> splashList.entrySet().parallelStream()
                 .collect(Collectors.toMap(
                         Map.Entry::getKey,
-                        entry -> gson.fromJson(entry.getValue(), dataClass)
-                ));
+                        entry -> !changes.isModified(entry.getKey()) && previous.containsKey(entry.getKey())
+                                ? previous.get(entry.getKey())
+                                : gson.fromJson(entry.getValue(), dataClass),
+                        (a, b) -> a,
+                        LinkedHashMap::new
+                )))
+                .join();
+    }
+
+    /**
+     * Swaps in newly bound data and notifies listeners. Listeners are only notified if something changed, or if this is the
+     * first time data is loaded.
+     */
+    private void publish(Map<ResourceLocation, JsonElement> splashList, DataChangeSet changes, Map<ResourceLocation, V> data) {
+        if (changes.isEmpty()) {
+            logger.info("Loaded {} {} (no changes)", String.format("%3d", splashList.values().size()), directory);
+            return;
+        }
 
-        listeners.forEach(Runnable::run);
+        dataMap = data;
+
+        long start = System.nanoTime();
+        listeners.forEach(listener -> listener.accept(changes));
+        logger.info("Loaded {} {} ({}), listeners took {} ms", String.format("%3d", splashList.values().size()), directory,
+                changes, (System.nanoTime() - start) / 1000000);
     }
 
     public Map<ResourceLocation, JsonElement> getRawData() {
@@ -152,9 +293,33 @@ public class DataStore<V> extends ReloadListener<Map<ResourceLocation, JsonEleme
     /**
      * Listen to changes on resources in this store
      *
-     * @param callback A runnable that is to be called when the store is reloaded
+     * @param callback A runnable that is to be called when the store is reloaded and its data has changed
      */
     public void onReload(Runnable callback) {
+        listeners.add(changes -> callback.run());
+    }
+
+    /**
+     * Listen to changes on resources in this store, for listeners that only have to update what's affected by the change.
+     *
+     * @param callback Called with the files that changed when the store is reloaded and its data has changed
+     */
+    public void onChange(Consumer<DataChangeSet> callback) {
         listeners.add(callback);
     }
+
+    /**
+     * Synced data that has been bound but not yet applied to the store.
+     */
+    public static class SyncedData<T> {
+        private final Map<ResourceLocation, JsonElement> rawData;
+        private final DataChangeSet changes;
+        private final Map<ResourceLocation, T> data;
+
+        private SyncedData(Map<ResourceLocation, JsonElement> rawData, DataChangeSet changes, Map<ResourceLocation, T> data) {
+            this.rawData = rawData;
+            this.changes = changes;
+            this.data = data;
+        }
+    }
 }
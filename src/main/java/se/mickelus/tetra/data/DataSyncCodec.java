@@ -0,0 +1,230 @@
+package se.mickelus.tetra.data;
+
+import com.google.common.hash.Hashing;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonNull;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonPrimitive;
+import io.netty.buffer.Unpooled;
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.util.ResourceLocation;
+import org.apache.commons.io.IOUtils;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Encodes the raw data of a data store into the payload that is synced to clients. The json of all files is written in a
+ * compact binary form, deflated and split into chunks that are small enough to be sent as separate packets. Packets are built
+ * once when the store is reloaded and sent as is to every player. Data is identified by a hash of its serialized form, which
+ * lets clients skip the transfer of data they have already received.
+ */
+public class DataSyncCodec {
+    private static final Logger logger = LogManager.getLogger();
+
+    static final int chunkSize = 256 * 1024;
+
+    // upper bound for the size of a payload, chunks beyond this are rejected by clients
+    static final int maxPayloadSize = 64 * 1024 * 1024;
+    static final int maxChunks = maxPayloadSize / chunkSize;
+
+    private static final Pattern hashPattern = Pattern.compile("[0-9a-f]{64}");
+
+    private static final byte typeNull = 0;
+    private static final byte typeFalse = 1;
+    private static final byte typeTrue = 2;
+    private static final byte typeInt = 3;
+    private static final byte typeDouble = 4;
+    private static final byte typeString = 5;
+    private static final byte typeArray = 6;
+    private static final byte typeObject = 7;
+
+    /**
+     * Splits a compressed payload into chunked packets.
+     *
+     * @param directory The directory of the data store that the payload belongs to
+     * @param payload The compressed data of the store
+     * @return packets holding the payload, to be sent in order
+     */
+    public static UpdateDataPacket[] createPackets(String directory, byte[] payload) {
+        int count = Math.max(1, (payload.length + chunkSize - 1) / chunkSize);
+        UpdateDataPacket[] packets = new UpdateDataPacket[count];
+        for (int i = 0; i < count; i++) {
+            packets[i] = new UpdateDataPacket(directory, i, count,
+                    Arrays.copyOfRange(payload, i * chunkSize, Math.min(payload.length, (i + 1) * chunkSize)));
+        }
+
+        logger.debug("Encoded {} into {} bytes, {} packets", directory, payload.length, count);
+
+        return packets;
+    }
+
+    /**
+     * @param serialized Serialized, uncompressed data
+     * @return the hash identifying the given data
+     */
+    public static String hash(byte[] serialized) {
+        return Hashing.sha256().hashBytes(serialized).toString();
+    }
+
+    /**
+     * Hashes are received from servers and used to name cache files, anything but a hex encoded sha256 hash is rejected.
+     *
+     * @return true if the given string is a valid hash
+     */
+    public static boolean isValidHash(String hash) {
+        return hash != null && hashPattern.matcher(hash).matches();
+    }
+
+    /**
+     * Serializes the given data, the same data in the same order always serializes to the same bytes.
+     *
+     * @param data The raw data of a store
+     * @return the serialized data
+     */
+    public static byte[] serialize(Map<ResourceLocation, JsonElement> data) {
+        PacketBuffer buffer = new PacketBuffer(Unpooled.buffer());
+        try {
+            buffer.writeVarInt(data.size());
+            data.forEach((location, json) -> {
+                buffer.writeResourceLocation(location);
+                writeElement(buffer, json);
+            });
+
+            byte[] bytes = new byte[buffer.readableBytes()];
+            buffer.readBytes(bytes);
+            return bytes;
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /**
+     * @param serialized Serialized data
+     * @return the raw data of a store, ordered as it was when serialized
+     */
+    public static Map<ResourceLocation, JsonElement> deserialize(byte[] serialized) {
+        PacketBuffer buffer = new PacketBuffer(Unpooled.wrappedBuffer(serialized));
+        int count = buffer.readVarInt();
+        Map<ResourceLocation, JsonElement> data = new LinkedHashMap<>(count);
+        for (int i = 0; i < count; i++) {
+            data.put(buffer.readResourceLocation(), readElement(buffer));
+        }
+
+        return data;
+    }
+
+    /**
+     * Compresses serialized data into a payload. Hashes are computed from the serialized data rather than the payload as
+     * the compressed form may differ between the server and the client.
+     */
+    public static byte[] compress(byte[] serialized) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (DeflaterOutputStream deflater = new DeflaterOutputStream(output, new Deflater(Deflater.BEST_COMPRESSION))) {
+            deflater.write(serialized);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        return output.toByteArray();
+    }
+
+    public static byte[] decompress(byte[] payload) throws IOException {
+        try (InflaterInputStream inflater = new InflaterInputStream(new ByteArrayInputStream(payload))) {
+            return IOUtils.toByteArray(inflater);
+        }
+    }
+
+    private static void writeElement(PacketBuffer buffer, JsonElement element) {
+        if (element.isJsonObject()) {
+            buffer.writeByte(typeObject);
+            buffer.writeVarInt(element.getAsJsonObject().size());
+            element.getAsJsonObject().entrySet().forEach(entry -> {
+                writeString(buffer, entry.getKey());
+                writeElement(buffer, entry.getValue());
+            });
+        } else if (element.isJsonArray()) {
+            buffer.writeByte(typeArray);
+            buffer.writeVarInt(element.getAsJsonArray().size());
+            element.getAsJsonArray().forEach(child -> writeElement(buffer, child));
+        } else if (element.isJsonPrimitive()) {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+            if (primitive.isBoolean()) {
+                buffer.writeByte(primitive.getAsBoolean() ? typeTrue : typeFalse);
+            } else if (primitive.isNumber()) {
+                double value = primitive.getAsDouble();
+                if (value == (int) value) {
+                    buffer.writeByte(typeInt);
+                    buffer.writeVarInt((int) value);
+                } else {
+                    buffer.writeByte(typeDouble);
+                    buffer.writeDouble(value);
+                }
+            } else {
+                buffer.writeByte(typeString);
+                writeString(buffer, primitive.getAsString());
+            }
+        } else {
+            buffer.writeByte(typeNull);
+        }
+    }
+
+    private static JsonElement readElement(PacketBuffer buffer) {
+        byte type = buffer.readByte();
+        switch (type) {
+            case typeNull:
+                return JsonNull.INSTANCE;
+            case typeFalse:
+                return new JsonPrimitive(false);
+            case typeTrue:
+                return new JsonPrimitive(true);
+            case typeInt:
+                return new JsonPrimitive(buffer.readVarInt());
+            case typeDouble:
+                return new JsonPrimitive(buffer.readDouble());
+            case typeString:
+                return new JsonPrimitive(readString(buffer));
+            case typeArray: {
+                int size = buffer.readVarInt();
+                JsonArray array = new JsonArray();
+                for (int i = 0; i < size; i++) {
+                    array.add(readElement(buffer));
+                }
+                return array;
+            }
+            case typeObject: {
+                int size = buffer.readVarInt();
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++) {
+                    String key = readString(buffer);
+                    object.add(key, readElement(buffer));
+                }
+                return object;
+            }
+            default:
+                throw new IllegalStateException("Unknown json element type " + type);
+        }
+    }
+
+    // PacketBuffer strings are capped at 32767 characters, data may contain longer strings than that
+    private static void writeString(PacketBuffer buffer, String string) {
+        buffer.writeByteArray(string.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String readString(PacketBuffer buffer) {
+        return new String(buffer.readByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,46 @@
+package se.mickelus.tetra.data;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import se.mickelus.tetra.network.AbstractPacket;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sent by clients in response to a {@link DataHashPacket}, lists the directories of the data stores that the client needs the
+ * data for.
+ */
+public class RequestDataPacket extends AbstractPacket {
+
+    private List<String> directories;
+
+    public RequestDataPacket() {}
+
+    public RequestDataPacket(List<String> directories) {
+        this.directories = directories;
+    }
+
+    @Override
+    public void toBytes(PacketBuffer buffer) {
+        buffer.writeVarInt(directories.size());
+        directories.forEach(buffer::writeString);
+    }
+
+    @Override
+    public void fromBytes(PacketBuffer buffer) {
+        int count = buffer.readVarInt();
+        directories = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            directories.add(buffer.readString());
+        }
+    }
+
+    @Override
+    public void handle(PlayerEntity player) {
+        if (player instanceof ServerPlayerEntity) {
+            DataManager.instance.sendData((ServerPlayerEntity) player, directories);
+        }
+    }
+}
@@ -1,53 +1,47 @@
 package se.mickelus.tetra.data;
 
-import com.google.gson.JsonElement;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.network.PacketBuffer;
-import net.minecraft.util.ResourceLocation;
 import se.mickelus.tetra.network.AbstractPacket;
 
-import java.util.HashMap;
-import java.util.Map;
-import java.util.stream.Collectors;
-
+/**
+ * Holds one chunk of the encoded data of a data store, see {@link DataSyncCodec}. The client reassembles the data once the
+ * last chunk has been received.
+ */
 public class UpdateDataPacket extends AbstractPacket {
 
     private String directory;
-    private Map<ResourceLocation, String> data;
+    private int index;
+    private int count;
+    private byte[] chunk;
 
     public UpdateDataPacket() {}
 
-    public UpdateDataPacket(String directory, Map<ResourceLocation, JsonElement> data) {
+    public UpdateDataPacket(String directory, int index, int count, byte[] chunk) {
         this.directory = directory;
-        this.data = data.entrySet().stream()
-                .collect(Collectors.toMap(
-                        Map.Entry::getKey,
-                        entry -> entry.getValue().toString()
-                ));
+        this.index = index;
+        this.count = count;
+        this.chunk = chunk;
     }
 
     @Override
     public void toBytes(PacketBuffer buffer) {
         buffer.writeString(directory);
-        buffer.writeInt(data.size());
-        data.forEach((resourceLocation, data) -> {
-            buffer.writeResourceLocation(resourceLocation);
-            buffer.writeString(data);
-        });
+        buffer.writeVarInt(index);
+        buffer.writeVarInt(count);
+        buffer.writeByteArray(chunk);
     }
 
     @Override
     public void fromBytes(PacketBuffer buffer) {
         directory = buffer.readString();
-        int count = buffer.readInt();
-        data = new HashMap<>();
-        for (int i = 0; i < count; i++) {
-            data.put(buffer.readResourceLocation(), buffer.readString());
-        }
+        index = buffer.readVarInt();
+        count = buffer.readVarInt();
+        chunk = buffer.readByteArray();
     }
 
     @Override
     public void handle(PlayerEntity player) {
-        DataManager.instance.onDataRecieved(directory, data);
+        DataManager.instance.onDataRecieved(directory, index, count, chunk);
     }
 }
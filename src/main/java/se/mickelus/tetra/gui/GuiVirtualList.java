@@ -0,0 +1,173 @@
+package se.mickelus.tetra.gui;
+
+import se.mickelus.mgui.gui.GuiElement;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * A horizontally scrolling list that only holds elements for the entries that are within its bounds. Elements for entries
+ * that leave the bounds of the list are pooled and rebound to entries that scroll into view, so that the number of elements
+ * stays close to the number of entries that fit within the list regardless of how many entries there are.
+ *
+ * @param <T> the type of the list entries
+ */
+public class GuiVirtualList<T> extends GuiElement {
+
+    private final int entryWidth;
+    private final int scrollStep;
+    private final BiFunction<Integer, T, GuiElement> elementFactory;
+    private final ElementBinder<T> elementBinder;
+
+    private List<T> entries = Collections.emptyList();
+    private IntUnaryOperator entryX = index -> 0;
+
+    private Map<Integer, GuiElement> boundElements = new HashMap<>();
+    private LinkedList<GuiElement> pooledElements = new LinkedList<>();
+
+    private int contentWidth = 0;
+    private int scrollOffset = 0;
+
+    /**
+     * @param entryWidth The width of each entry, used to decide if an entry is within the bounds of the list
+     * @param scrollStep The distance scrolled per scroll wheel step
+     * @param elementFactory Creates an element for an entry when there is no pooled element that can be rebound to it
+     * @param elementBinder Binds an element to an entry that has come into view, the element is either newly created by the
+     *                      factory or taken from the pool. The x position of the element is set by the list before it is
+     *                      bound.
+     */
+    public GuiVirtualList(int x, int y, int width, int height, int entryWidth, int scrollStep,
+            BiFunction<Integer, T, GuiElement> elementFactory, ElementBinder<T> elementBinder) {
+        super(x, y, width, height);
+
+        this.entryWidth = entryWidth;
+        this.scrollStep = scrollStep;
+        this.elementFactory = elementFactory;
+        this.elementBinder = elementBinder;
+    }
+
+    /**
+     * Replaces the entries of the list and scrolls back to the start of the list, elements bound to the previous entries are
+     * returned to the pool.
+     *
+     * @param entries The new entries
+     * @param entryX Returns the x position of the entry at the given index, relative to the start of the list
+     */
+    public void setEntries(List<T> entries, IntUnaryOperator entryX) {
+        this.entries = entries;
+        this.entryX = entryX;
+
+        pooledElements.addAll(boundElements.values());
+        boundElements.clear();
+
+        contentWidth = 0;
+        for (int i = 0; i < entries.size(); i++) {
+            contentWidth = Math.max(contentWidth, entryX.applyAsInt(i) + entryWidth);
+        }
+
+        scrollOffset = 0;
+        updateVisibleElements();
+    }
+
+    /**
+     * Scrolls the list by the given number of steps, negative values scroll towards the start of the list.
+     *
+     * @return true if the list was scrolled
+     */
+    public boolean scroll(int steps) {
+        int offset = Math.max(0, Math.min(scrollOffset + steps * scrollStep, contentWidth - width));
+        if (offset != scrollOffset) {
+            scrollOffset = offset;
+            updateVisibleElements();
+            return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Passes the elements that are currently bound to entries within the bounds of the list to the given consumer.
+     */
+    public void forEachElement(Consumer<GuiElement> consumer) {
+        boundElements.values().forEach(consumer);
+    }
+
+    private void updateVisibleElements() {
+        clearChildren();
+
+        List<Integer> visibleIndices = new ArrayList<>();
+        Map<Integer, GuiElement> previousElements = boundElements;
+        boundElements = new HashMap<>();
+
+        for (int i = 0; i < entries.size(); i++) {
+            int elementX = entryX.applyAsInt(i) - scrollOffset;
+            if (elementX + entryWidth > 0 && elementX < width) {
+                visibleIndices.add(i);
+
+                GuiElement element = previousElements.remove(i);
+                if (element != null) {
+                    element.setX(elementX);
+                    boundElements.put(i, element);
+                }
+            }
+        }
+
+        // elements of entries that left the bounds can be rebound to the entries that came into view
+        pooledElements.addAll(previousElements.values());
+
+        for (int index : visibleIndices) {
+            GuiElement element = boundElements.get(index);
+            if (element == null) {
+                element = obtainElement(index, entries.get(index), entryX.applyAsInt(index) - scrollOffset);
+                boundElements.put(index, element);
+            }
+
+            addChild(element);
+        }
+
+        while (pooledElements.size() > boundElements.size()) {
+            pooledElements.removeLast();
+        }
+    }
+
+    private GuiElement obtainElement(int index, T entry, int elementX) {
+        Iterator<GuiElement> iterator = pooledElements.iterator();
+        while (iterator.hasNext()) {
+            GuiElement element = iterator.next();
+            if (elementBinder.canBind(element, entry)) {
+                iterator.remove();
+                element.setX(elementX);
+                elementBinder.bind(element, index, entry);
+                return element;
+            }
+        }
+
+        GuiElement element = elementFactory.apply(index, entry);
+        element.setX(elementX);
+        elementBinder.bind(element, index, entry);
+        return element;
+    }
+
+    public interface ElementBinder<T> {
+        /**
+         * @return true if the given element is able to display the given entry, e.g. if it is of the right type
+         */
+        default boolean canBind(GuiElement element, T entry) {
+            return true;
+        }
+
+        /**
+         * Binds the given element to the given entry. Called both for newly created elements and elements taken from the
+         * pool, every time an entry comes into view.
+         */
+        void bind(GuiElement element, int index, T entry);
+    }
+}
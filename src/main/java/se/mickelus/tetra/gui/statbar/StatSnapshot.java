@@ -0,0 +1,86 @@
+package se.mickelus.tetra.gui.statbar;
+
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+
+import java.util.Objects;
+
+/**
+ * Copy of the input that a group of stat bars was last updated with. Stat bars are updated from tick and hover handlers,
+ * often with input that is equal to what's already displayed, comparing against the snapshot lets the group skip
+ * recomputing every stat and redoing the layout when nothing has changed.
+ */
+public class StatSnapshot {
+    private final PlayerEntity player;
+    private final String slot;
+    private final String improvement;
+
+    private final StackSnapshot currentStack;
+    private final StackSnapshot previewStack;
+
+    private StatSnapshot(PlayerEntity player, ItemStack currentStack, ItemStack previewStack, String slot, String improvement) {
+        this.player = player;
+        this.currentStack = new StackSnapshot(currentStack);
+        this.previewStack = new StackSnapshot(previewStack);
+        this.slot = slot;
+        this.improvement = improvement;
+    }
+
+    /**
+     * Compares the given input against the previous snapshot.
+     *
+     * @param previous the snapshot that the bars were last updated with, or null if they have not been updated yet
+     * @return a new snapshot of the given input, or null if the input is equal to the previous snapshot
+     */
+    public static StatSnapshot update(StatSnapshot previous, PlayerEntity player, ItemStack currentStack, ItemStack previewStack,
+            String slot, String improvement) {
+        if (previous != null
+                && previous.player == player
+                && Objects.equals(previous.slot, slot)
+                && Objects.equals(previous.improvement, improvement)
+                && previous.currentStack.matches(currentStack)
+                && previous.previewStack.matches(previewStack)) {
+            return null;
+        }
+
+        return new StatSnapshot(player, currentStack, previewStack, slot, improvement);
+    }
+
+    private static class StackSnapshot {
+        // the stack and tag instances last seen, stacks are usually passed in unchanged which makes reference checks enough
+        private ItemStack reference;
+        private CompoundNBT tag;
+        private int count;
+        private int damage;
+
+        private final ItemStack copy;
+
+        StackSnapshot(ItemStack itemStack) {
+            copy = itemStack.copy();
+            see(itemStack);
+        }
+
+        private void see(ItemStack itemStack) {
+            reference = itemStack;
+            tag = itemStack.getTag();
+            count = itemStack.getCount();
+            damage = itemStack.getDamage();
+        }
+
+        boolean matches(ItemStack itemStack) {
+            if (reference == itemStack && tag == itemStack.getTag() && count == itemStack.getCount()
+                    && damage == itemStack.getDamage()) {
+                return true;
+            }
+
+            // another instance or a modified one, fall back to a deep comparison and remember the instance if it's equal
+            if (ItemStack.areItemStacksEqual(copy, itemStack)) {
+                see(itemStack);
+                return true;
+            }
+
+            return false;
+        }
+    }
+}
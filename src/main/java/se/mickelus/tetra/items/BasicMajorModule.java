@@ -10,16 +10,30 @@ import se.mickelus.tetra.module.data.ImprovementData;
 import se.mickelus.tetra.module.data.ModuleData;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 public class BasicMajorModule extends ItemModuleMajor {
     public BasicMajorModule(String slotKey, String moduleKey, String ... improvementKeys) {
         super(slotKey, moduleKey);
 
-        DataManager.moduleData.onReload(() -> data = DataManager.moduleData.getData(new ResourceLocation(TetraMod.MOD_ID, moduleKey)));
+        ResourceLocation dataLocation = new ResourceLocation(TetraMod.MOD_ID, moduleKey);
+        DataManager.moduleData.onChange(changes -> {
+            if (changes.affects(dataLocation)) {
+                setData(DataManager.moduleData.getData(dataLocation));
+            }
+        });
 
         if (improvementKeys.length > 0) {
-            DataManager.improvementData.onReload(() -> {
+            List<ResourceLocation> improvementLocations = Arrays.stream(improvementKeys)
+                    .map(key -> new ResourceLocation(TetraMod.MOD_ID, key))
+                    .collect(Collectors.toList());
+            DataManager.improvementData.onChange(changes -> {
+                if (!changes.affectsAny(improvementLocations)) {
+                    return;
+                }
+
                 improvements = Arrays.stream(improvementKeys)
                         .map(key -> DataManager.improvementData.getData(new ResourceLocation(TetraMod.MOD_ID, key)))
                         .filter(Objects::nonNull)
@@ -14,15 +14,25 @@ public class BasicModule extends ItemModule {
     public BasicModule(String slotKey, String moduleKey) {
         super(slotKey, moduleKey);
 
-        DataManager.moduleData.onReload(() -> data = DataManager.moduleData.getData(new ResourceLocation(TetraMod.MOD_ID, moduleKey)));
+        ResourceLocation dataLocation = new ResourceLocation(TetraMod.MOD_ID, moduleKey);
+        DataManager.moduleData.onChange(changes -> {
+            if (changes.affects(dataLocation)) {
+                setData(DataManager.moduleData.getData(dataLocation));
+            }
+        });
         ItemUpgradeRegistry.instance.registerModule(moduleKey, this);
     }
 
     public BasicModule(String slotKey, String moduleKey, String tweakKey) {
         this(slotKey, moduleKey);
 
-        DataManager.tweakData.onReload(() -> {
-            TweakData[] tweaks = DataManager.tweakData.getData(new ResourceLocation(TetraMod.MOD_ID, tweakKey));
+        ResourceLocation tweakLocation = new ResourceLocation(TetraMod.MOD_ID, tweakKey);
+        DataManager.tweakData.onChange(changes -> {
+            if (!changes.affects(tweakLocation)) {
+                return;
+            }
+
+            TweakData[] tweaks = DataManager.tweakData.getData(tweakLocation);
             if (tweaks != null) {
                 this.tweaks = tweaks;
             } else {
@@ -0,0 +1,67 @@
+package se.mickelus.tetra.items;
+
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import net.minecraft.item.Item;
+
+import java.util.Arrays;
+
+/**
+ * Identifies a distinct configuration of a modular item: the item itself, its modules, module variants, improvements and
+ * tweak steps. Itemstacks with equal configurations have equal stats, which allows stats and other derived data to be
+ * shared between stacks. Instances are interned so that they can be used as keys in weakly keyed (identity based) caches.
+ */
+public class ItemConfiguration {
+    private static final Interner<ItemConfiguration> interner = Interners.newWeakInterner();
+
+    private final Item item;
+    private final Object[] parts;
+
+    private final int hash;
+
+    private ItemConfiguration(Item item, Object[] parts) {
+        this.item = item;
+        this.parts = parts;
+
+        hash = 31 * item.hashCode() + Arrays.hashCode(parts);
+    }
+
+    /**
+     * Returns the canonical configuration instance for the given item and parts.
+     *
+     * @param item The modular item
+     * @param parts Values describing the configuration, should only contain values with well behaved equals and hashCode
+     * @return an interned configuration
+     */
+    public static ItemConfiguration of(Item item, Object[] parts) {
+        return interner.intern(new ItemConfiguration(item, parts));
+    }
+
+    public Item getItem() {
+        return item;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        ItemConfiguration that = (ItemConfiguration) o;
+        return hash == that.hash && item == that.item && Arrays.equals(parts, that.parts);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public String toString() {
+        return item.getRegistryName() + Arrays.toString(parts);
+    }
+}
@@ -0,0 +1,151 @@
+package se.mickelus.tetra.items;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.minecraft.client.Minecraft;
+import net.minecraft.util.text.ITextComponent;
+import net.minecraft.util.text.StringTextComponent;
+import net.minecraft.util.text.Style;
+import net.minecraft.util.text.TextFormatting;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import se.mickelus.tetra.client.RenderStatistics;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Localized text for a single item configuration: the display name and the module and improvement lines of the tooltip.
+ * Resolving these involves synergy matching and a fair amount of translation lookups, so it's done once per configuration
+ * and language and shared by all stacks with the same configuration. Parts of the tooltip that depend on the state of the
+ * stack rather than its configuration (durability, honing progress) are not cached.
+ */
+public class ItemDisplayText {
+
+    // weak keys are compared by identity, configurations are interned so that's fine
+    private static final Cache<ItemConfiguration, ItemDisplayText> cache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(2000)
+            .build();
+
+    private static final AtomicLong hitCount = new AtomicLong();
+    private static final AtomicLong missCount = new AtomicLong();
+
+    private final String language;
+
+    private String name;
+    private Line[] detailedLines;
+    private Line[] summaryLines;
+
+    private ItemDisplayText(String language) {
+        this.language = language;
+    }
+
+    /**
+     * Returns the display text for the configuration of the given view, text is resolved lazily as it is requested.
+     *
+     * @param view A modular item view
+     * @return the display text for the configuration of the view in the current language
+     */
+    @OnlyIn(Dist.CLIENT)
+    public static ItemDisplayText get(ItemModularView view) {
+        String language = Minecraft.getInstance().getLanguageManager().getCurrentLanguage().getCode();
+
+        ItemDisplayText text = cache.getIfPresent(view.getConfiguration());
+        if (text == null || !text.language.equals(language)) {
+            text = new ItemDisplayText(language);
+            cache.put(view.getConfiguration(), text);
+        }
+
+        return text;
+    }
+
+    /**
+     * Drops all cached text, should be called when resources or the data that names depend upon are reloaded.
+     */
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * @return the number of times cached text has been used since the game was started
+     */
+    public static long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * @return the number of times text has been resolved since the game was started
+     */
+    public static long getMissCount() {
+        return missCount.get();
+    }
+
+    public String getName(Supplier<String> nameSupplier) {
+        if (name == null) {
+            long start = System.nanoTime();
+            name = nameSupplier.get();
+            RenderStatistics.recordTextResolve(System.nanoTime() - start);
+            missCount.incrementAndGet();
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        return name;
+    }
+
+    /**
+     * Adds the lines listing all modules and improvements of the item, shown when shift is held.
+     */
+    public void addDetailedLines(List<ITextComponent> tooltip, Consumer<List<Line>> lineSupplier) {
+        if (detailedLines == null) {
+            detailedLines = resolve(lineSupplier);
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        addLines(tooltip, detailedLines);
+    }
+
+    /**
+     * Adds the lines listing enchantments, shown when shift is not held.
+     */
+    public void addSummaryLines(List<ITextComponent> tooltip, Consumer<List<Line>> lineSupplier) {
+        if (summaryLines == null) {
+            summaryLines = resolve(lineSupplier);
+        } else {
+            hitCount.incrementAndGet();
+        }
+
+        addLines(tooltip, summaryLines);
+    }
+
+    private static Line[] resolve(Consumer<List<Line>> lineSupplier) {
+        long start = System.nanoTime();
+        List<Line> lines = new ArrayList<>();
+        lineSupplier.accept(lines);
+        RenderStatistics.recordTextResolve(System.nanoTime() - start);
+        missCount.incrementAndGet();
+        return lines.toArray(new Line[0]);
+    }
+
+    private static void addLines(List<ITextComponent> tooltip, Line[] lines) {
+        // components are mutable, so a new component is created for each line rather than sharing them between tooltips
+        for (Line line : lines) {
+            tooltip.add(new StringTextComponent(line.text).setStyle(new Style().setColor(line.color)));
+        }
+    }
+
+    public static class Line {
+        private final String text;
+        private final TextFormatting color;
+
+        public Line(String text, TextFormatting color) {
+            this.text = text;
+            this.color = color;
+        }
+    }
+}
@@ -35,7 +35,6 @@ import se.mickelus.tetra.module.ItemUpgradeRegistry;
 import se.mickelus.tetra.module.data.ImprovementData;
 import se.mickelus.tetra.module.data.ModuleModel;
 import se.mickelus.tetra.module.data.SynergyData;
-import se.mickelus.tetra.module.data.EnchantmentMapping;
 import se.mickelus.tetra.module.improvement.DestabilizationEffect;
 import se.mickelus.tetra.module.improvement.HonePacket;
 import se.mickelus.tetra.module.schema.Material;
@@ -67,7 +66,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
     protected int baseDurability = 0;
     protected int baseIntegrity = 0;
 
-    protected SynergyData[] synergies = new SynergyData[0];
+    private SynergyMatcher synergyMatcher = new SynergyMatcher(new SynergyData[0]);
 
     public ItemModular(Properties properties) {
         super(properties);
@@ -80,45 +79,72 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
 
     @Override
     public int getMaxDamage(ItemStack stack) {
-        return (int) ((getAllModules(stack).stream()
-                .map(itemModule -> itemModule.getDurability(stack))
-                .reduce(0, Integer::sum) + baseDurability)
-                * getDurabilityMultiplier(stack));
+        return getStatSheet(stack).getDurability();
     }
 
     public float getDurabilityMultiplier(ItemStack itemStack) {
-        return getAllModules(itemStack).stream()
-                .map(itemModule -> itemModule.getDurabilityMultiplier(itemStack))
-                .reduce(1f, (a, b) -> a * b);
+        return getStatSheet(itemStack).getDurabilityMultiplier();
     }
 
     public static int getIntegrityGain(ItemStack itemStack) {
         if (itemStack.getItem() instanceof ItemModular) {
-            return ((ItemModular) itemStack.getItem()).getAllModules(itemStack).stream()
-                    .map(module -> module.getIntegrityGain(itemStack))
-                    .reduce(0, Integer::sum);
+            return ((ItemModular) itemStack.getItem()).getStatSheet(itemStack).getIntegrityGain();
         }
         return 0;
     }
 
     public static int getIntegrityCost(ItemStack itemStack) {
         if (itemStack.getItem() instanceof ItemModular) {
-            return ((ItemModular) itemStack.getItem()).getAllModules(itemStack).stream()
-                    .map(module -> module.getIntegrityCost(itemStack))
-                    .reduce(0, Integer::sum);
+            return ((ItemModular) itemStack.getItem()).getStatSheet(itemStack).getIntegrityCost();
         }
         return 0;
     }
 
+    /**
+     * Returns the compiled stats for the configuration of the given itemstack. Sheets are shared between all stacks that
+     * have the same modules, variants, improvements and tweaks, so this is cheap to call repeatedly.
+     * @param itemStack A modular itemstack
+     * @return The stat sheet for the itemstack
+     */
+    public ItemStatSheet getStatSheet(ItemStack itemStack) {
+        ItemModularView view = ItemModularView.get(itemStack);
+
+        if (view != null) {
+            return ItemStatSheet.get(view.getConfiguration(), () -> new ItemStatSheet(this, itemStack));
+        }
+
+        return new ItemStatSheet(this, itemStack);
+    }
+
+    /**
+     * Computes the attack damage modifier when compiling the stat sheet for an itemstack, should not call stat getters that
+     * read from the stat sheet. Items that are not meant to be wielded have no damage modifier.
+     * @param itemStack A modular itemstack
+     * @param synergies Synergies that are active for the itemstack
+     * @return The damage modifier
+     */
+    protected double computeDamageModifier(ItemStack itemStack, SynergyData[] synergies) {
+        return 0;
+    }
+
+    /**
+     * Computes the attack speed modifier when compiling the stat sheet for an itemstack, should not call stat getters that
+     * read from the stat sheet. Items that are not meant to be wielded have no speed modifier.
+     * @param itemStack A modular itemstack
+     * @param synergies Synergies that are active for the itemstack
+     * @param counterweightLevel The counterweight effect level of the itemstack
+     * @param integrityCost The integrity cost of the itemstack
+     * @return The speed modifier
+     */
+    protected double computeSpeedModifier(ItemStack itemStack, SynergyData[] synergies, int counterweightLevel, int integrityCost) {
+        return 0;
+    }
+
     protected Collection<ItemModule> getAllModules(ItemStack stack) {
-        CompoundNBT stackTag = NBTHelper.getTag(stack);
+        ItemModularView view = ItemModularView.get(stack);
 
-        if (stackTag != null) {
-            return Stream.concat(Arrays.stream(majorModuleKeys),Arrays.stream(minorModuleKeys))
-                    .map(stackTag::getString)
-                    .map(ItemUpgradeRegistry.instance::getModule)
-                    .filter(Objects::nonNull)
-                    .collect(Collectors.toList());
+        if (view != null) {
+            return view.getModules();
         }
 
         return Collections.emptyList();
@@ -126,32 +152,24 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
 
     @Override
     public ItemModuleMajor[] getMajorModules(ItemStack itemStack) {
-        ItemModuleMajor[] modules = new ItemModuleMajor[majorModuleKeys.length];
-        CompoundNBT stackTag = NBTHelper.getTag(itemStack);
-
-        for (int i = 0; i < majorModuleKeys.length; i++) {
-            String moduleName = stackTag.getString(majorModuleKeys[i]);
-            ItemModule module = ItemUpgradeRegistry.instance.getModule(moduleName);
-            if (module instanceof ItemModuleMajor) {
-                modules[i] = (ItemModuleMajor) module;
-            }
+        ItemModularView view = ItemModularView.get(itemStack);
+
+        if (view != null) {
+            return view.getMajorModules();
         }
 
-        return modules;
+        return new ItemModuleMajor[majorModuleKeys.length];
     }
 
     @Override
     public ItemModule[] getMinorModules(ItemStack itemStack) {
-        ItemModule[] modules = new ItemModule[minorModuleKeys.length];
-        CompoundNBT stackTag = NBTHelper.getTag(itemStack);
+        ItemModularView view = ItemModularView.get(itemStack);
 
-        for (int i = 0; i < minorModuleKeys.length; i++) {
-            String moduleName = stackTag.getString(minorModuleKeys[i]);
-            ItemModule module = ItemUpgradeRegistry.instance.getModule(moduleName);
-            modules[i] = module;
+        if (view != null) {
+            return view.getMinorModules();
         }
 
-        return modules;
+        return new ItemModule[minorModuleKeys.length];
     }
 
     @Override
@@ -211,11 +229,17 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
     }
 
     public boolean hasModule(ItemStack itemStack, ItemModule module) {
-        return getAllModules(itemStack).stream()
-            .anyMatch(module::equals);
+        ItemModularView view = ItemModularView.get(itemStack);
+        return view != null && view.hasModule(module);
     }
 
     public ItemModule getModuleFromSlot(ItemStack itemStack, String slot) {
+        ItemModularView view = ItemModularView.get(itemStack);
+
+        if (view != null) {
+            return view.getModule(slot);
+        }
+
         return ItemUpgradeRegistry.instance.getModule(NBTHelper.getTag(itemStack).getString(slot));
     }
 
@@ -352,23 +376,24 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
                     .setStyle(new Style().setColor(TextFormatting.DARK_RED).setItalic(true)));
         }
 
+        ItemDisplayText displayText = ItemDisplayText.get(ItemModularView.get(itemStack));
         if (Screen.hasShiftDown()) {
-            Arrays.stream(getMajorModules(itemStack))
-                    .filter(Objects::nonNull)
-                    .forEach(module -> {
-                        tooltip.add(new StringTextComponent("\u00BB " + module.getName(itemStack)).setStyle(basicStyle));
-                        Arrays.stream(module.getImprovements(itemStack))
-                                .map(improvement -> String.format(" - %s", getImprovementTooltip(improvement.key, improvement.level, true)))
-                                .map(StringTextComponent::new)
-                                .map(textComponent -> textComponent.setStyle(new Style().setColor(TextFormatting.DARK_GRAY)))
-                                .forEach(tooltip::add);
-                    });
-            Arrays.stream(getMinorModules(itemStack))
-                    .filter(Objects::nonNull)
-                    .map(module -> "* " + module.getName(itemStack))
-                    .map(StringTextComponent::new)
-                    .map(textComponent -> textComponent.setStyle(basicStyle))
-                    .forEach(tooltip::add);
+            displayText.addDetailedLines(tooltip, lines -> {
+                Arrays.stream(getMajorModules(itemStack))
+                        .filter(Objects::nonNull)
+                        .forEach(module -> {
+                            lines.add(new ItemDisplayText.Line("\u00BB " + module.getName(itemStack), TextFormatting.GRAY));
+                            Arrays.stream(module.getImprovements(itemStack))
+                                    .map(improvement -> String.format(" - %s", getImprovementTooltip(improvement.key, improvement.level, true)))
+                                    .map(text -> new ItemDisplayText.Line(text, TextFormatting.DARK_GRAY))
+                                    .forEach(lines::add);
+                        });
+                Arrays.stream(getMinorModules(itemStack))
+                        .filter(Objects::nonNull)
+                        .map(module -> "* " + module.getName(itemStack))
+                        .map(text -> new ItemDisplayText.Line(text, TextFormatting.GRAY))
+                        .forEach(lines::add);
+            });
 
             // honing tooltip
             if (ConfigHandler.moduleProgression.get()) {
@@ -386,7 +411,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
                 }
             }
         } else {
-            Arrays.stream(getMajorModules(itemStack))
+            displayText.addSummaryLines(tooltip, lines -> Arrays.stream(getMajorModules(itemStack))
                     .filter(Objects::nonNull)
                     .flatMap(module -> Arrays.stream(module.getImprovements(itemStack)))
                     .filter(improvement -> improvement.enchantment)
@@ -394,9 +419,8 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
                     .entrySet()
                     .stream()
                     .map(entry -> getImprovementTooltip(entry.getKey(), entry.getValue(), false))
-                    .map(StringTextComponent::new)
-                    .map(text -> text.setStyle(basicStyle))
-                    .forEach(tooltip::add);
+                    .map(text -> new ItemDisplayText.Line(text, TextFormatting.GRAY))
+                    .forEach(lines::add));
         }
     }
 
@@ -539,32 +563,13 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
     }
 
     public Map<Enchantment, Integer> getEnchantmentsFromImprovements(ItemStack itemStack) {
-        Map<Enchantment, Integer> enchantments = new HashMap<>();
-        CastOptional.cast(itemStack.getItem(), ItemModular.class)
-                .map(item -> Arrays.stream(item.getMajorModules(itemStack)))
-                .orElseGet(Stream::empty)
-                .filter(Objects::nonNull)
-                .flatMap(module -> Arrays.stream(module.getImprovements(itemStack)))
-                .forEach(improvement -> {
-                    for (EnchantmentMapping mapping : ItemUpgradeRegistry.instance.getEnchantmentMappings(improvement.key)) {
-                        enchantments.merge(mapping.enchantment, (int) (improvement.level * mapping.multiplier), Integer::sum);
-                    }
-                });
-
-        return enchantments;
+        return CastOptional.cast(itemStack.getItem(), ItemModular.class)
+                .map(item -> new HashMap<>(item.getStatSheet(itemStack).getAppliedEnchantments()))
+                .orElseGet(HashMap::new);
     }
 
     public int getEnchantmentLevelFromImprovements(ItemStack itemStack, Enchantment enchantment) {
-        return Arrays.stream(getMajorModules(itemStack))
-                .filter(Objects::nonNull)
-                .flatMap(module -> Arrays.stream(module.getImprovements(itemStack)))
-                .mapToInt(improvement ->
-                        (int) (Math.max(1, improvement.level) * Arrays.stream(ItemUpgradeRegistry.instance.getEnchantmentMappings(improvement.key))
-                        .filter(mapping -> enchantment.equals(mapping.enchantment))
-                        .map(mapping -> mapping.multiplier)
-                        .reduce(0f, Float::sum))
-                    )
-                .sum();
+        return getStatSheet(itemStack).getEnchantmentLevel(enchantment);
     }
 
     public int getEnchantmentLevelFromImprovements(ItemStack itemStack, String slot, Enchantment enchantment) {
@@ -572,7 +577,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
                 .map(module -> Arrays.stream(module.getImprovements(itemStack)))
                 .orElseGet(Stream::empty)
                 .mapToInt(improvement ->
-                        (int) (Math.max(1, improvement.level) * Arrays.stream(ItemUpgradeRegistry.instance.getEnchantmentMappings(improvement.key))
+                        (int) (Math.max(1, improvement.level) * ItemUpgradeRegistry.instance.getEnchantmentMappings(improvement.key).stream()
                         .filter(mapping -> enchantment.equals(mapping.enchantment))
                         .map(mapping -> mapping.multiplier)
                         .reduce(0f, Float::sum))
@@ -586,7 +591,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
                 .orElseGet(Stream::empty)
                 .filter(improvement -> improvementKey.equals(improvement.key))
                 .mapToInt(improvement ->
-                        (int) (Math.max(1, improvement.level) * Arrays.stream(ItemUpgradeRegistry.instance.getEnchantmentMappings(improvement.key))
+                        (int) (Math.max(1, improvement.level) * ItemUpgradeRegistry.instance.getEnchantmentMappings(improvement.key).stream()
                                 .filter(mapping -> enchantment.equals(mapping.enchantment))
                                 .map(mapping -> mapping.multiplier)
                                 .reduce(0f, Float::sum))
@@ -667,17 +672,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return -1;
         }
 
-        int base = getAllModules(itemStack).stream()
-                .map(module -> module.getCapabilityLevel(itemStack, capability))
-                .max(Integer::compare)
-                .orElse(-1);
-
-        int synergyBonus = Arrays.stream(getSynergyData(itemStack))
-                .map(synergyData -> synergyData.capabilities)
-                .mapToInt(capabilityData -> capabilityData.getLevel(capability))
-                .sum();
-
-        return base + synergyBonus;
+        return getStatSheet(itemStack).getCapabilityLevel(capability);
     }
 
     public float getCapabilityEfficiency(ItemStack itemStack, ToolType toolType) {
@@ -700,27 +695,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return 0;
         }
 
-        int highestLevel = getAllModules(itemStack).stream()
-                .map(module -> module.getCapabilityLevel(itemStack, capability))
-                .max(Integer::compare)
-                .orElse(-1);
-
-        // grabs the highest efficiency from modules that also provide a capability level (from the module(s) that have the highest capability level
-        // adds the efficiency of all modules that have 0 capability level
-        float efficiency = getAllModules(itemStack).stream()
-                .filter(module -> module.getCapabilityLevel(itemStack, capability) >= highestLevel)
-                .map(module -> module.getCapabilityEfficiency(itemStack, capability))
-                .max(Float::compare)
-                .orElse(1f)
-                + (float) getAllModules(itemStack).stream()
-                .filter(module -> module.getCapabilityLevel(itemStack, capability) == 0)
-                .mapToDouble(module -> module.getCapabilityEfficiency(itemStack, capability))
-                .sum();
-
-        return Math.max(0, efficiency + (float) Arrays.stream(getSynergyData(itemStack))
-                .map(synergyData -> synergyData.capabilities)
-                .mapToDouble(capabilityData -> capabilityData.getEfficiency(capability))
-                .sum());
+        return getStatSheet(itemStack).getCapabilityEfficiency(capability);
     }
 
     @Override
@@ -729,9 +704,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return Collections.emptyList();
         }
 
-        return getAllModules(itemStack).stream()
-                .flatMap(module -> ((Collection<Capability>)module.getCapabilities(itemStack)).stream())
-                .collect(Collectors.toSet());
+        return getStatSheet(itemStack).getCapabilities();
     }
 
     /**
@@ -773,9 +746,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return -1;
         }
 
-        return getAllModules(itemStack).stream()
-                .mapToInt(module -> module.getEffectLevel(itemStack, effect))
-                .sum();
+        return getStatSheet(itemStack).getEffectLevel(effect);
     }
 
     public double getEffectEfficiency(ItemStack itemStack, ItemEffect effect) {
@@ -783,9 +754,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return 0;
         }
 
-        return getAllModules(itemStack).stream()
-                .mapToDouble(module -> module.getEffectEfficiency(itemStack, effect))
-                .sum();
+        return getStatSheet(itemStack).getEffectEfficiency(effect);
     }
 
     public Collection<ItemEffect> getEffects(ItemStack itemStack) {
@@ -793,11 +762,7 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return Collections.emptyList();
         }
 
-        return getAllModules(itemStack).stream()
-                .flatMap(module -> ((Collection<ItemEffect>)module.getEffects(itemStack)).stream())
-                .distinct()
-                .collect(Collectors.toSet());
-
+        return getStatSheet(itemStack).getEffects();
     }
 
     @Override
@@ -812,10 +777,13 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
     }
 
     public ImprovementData[] getImprovements(ItemStack itemStack) {
-        return Arrays.stream(getMajorModules(itemStack))
-                .filter(Objects::nonNull)
-                .flatMap(module -> Arrays.stream(module.getImprovements(itemStack)))
-                .toArray(ImprovementData[]::new);
+        ItemModularView view = ItemModularView.get(itemStack);
+
+        if (view != null) {
+            return view.getImprovements();
+        }
+
+        return new ImprovementData[0];
     }
 
     protected String getDisplayNamePrefixes(ItemStack itemStack) {
@@ -840,6 +808,16 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
             return new StringTextComponent("");
         }
 
+        ItemModularView view = ItemModularView.get(itemStack);
+        return new StringTextComponent(ItemDisplayText.get(view).getName(() -> resolveDisplayName(itemStack)));
+    }
+
+    /**
+     * Resolves the localized display name for the given itemstack, the name only depends on the configuration of the
+     * item and is cached per configuration by getDisplayName.
+     */
+    @OnlyIn(Dist.CLIENT)
+    protected String resolveDisplayName(ItemStack itemStack) {
         String name = Arrays.stream(getSynergyData(itemStack))
                 .map(synergyData -> synergyData.name)
                 .filter(Objects::nonNull)
@@ -857,55 +835,32 @@ public abstract class ItemModular extends TetraItem implements IItemModular, ICa
         }
 
         String prefixes = getDisplayNamePrefixes(itemStack);
-        return new StringTextComponent(WordUtils.capitalize(prefixes + name));
+        return WordUtils.capitalize(prefixes + name);
+    }
+
+    /**
+     * Sets the synergies that are available for this item, compiling them into a matcher. Should be called when synergy
+     * data is reloaded.
+     * @param synergies All synergies for this item
+     */
+    protected void setSynergies(SynergyData[] synergies) {
+        synergyMatcher = new SynergyMatcher(synergies);
     }
 
     public SynergyData[] getAllSynergyData(ItemStack itemStack) {
-        return synergies;
+        return synergyMatcher.getSynergies();
     }
 
+    /**
+     * Returns the synergies that are active for the given itemstack. Matches are memoized per item configuration, the
+     * returned array is shared and must not be modified.
+     * @param itemStack A modular itemstack
+     * @return An array of active synergies
+     */
     public SynergyData[] getSynergyData(ItemStack itemStack) {
-        if (synergies.length > 0) {
-            ArrayList<SynergyData> result = new ArrayList<>();
-            String[] moduleKeys = getAllModules(itemStack).stream()
-                    .map(ItemModule::getUnlocalizedName)
-                    .sorted()
-                    .toArray(String[]::new);
-            String[] variantKeys = getAllModules(itemStack).stream()
-                    .map(module -> module.getData(itemStack))
-                    .map(data -> data.key)
-                    .sorted()
-                    .toArray(String[]::new);
-
-            for (SynergyData synergy : synergies) {
-                int variantMatches = 0;
-                int moduleMatches = 0;
-                for (String variantKey : variantKeys) {
-                    if (variantMatches == synergy.moduleVariants.length) {
-                        break;
-                    }
-
-                    if (variantKey.equals(synergy.moduleVariants[variantMatches])) {
-                        variantMatches++;
-                    }
-                }
-
-                for (String moduleKey : moduleKeys) {
-                    if (moduleMatches == synergy.modules.length) {
-                        break;
-                    }
-
-                    if (moduleKey.equals(synergy.modules[moduleMatches])) {
-                        moduleMatches++;
-                    }
-                }
-
-                if (synergy.moduleVariants.length > 0 && variantMatches == synergy.moduleVariants.length
-                        || synergy.modules.length > 0 && moduleMatches == synergy.modules.length) {
-                    result.add(synergy);
-                }
-            }
-            return result.toArray(new SynergyData[result.size()]);
+        ItemModularView view = ItemModularView.get(itemStack);
+        if (view != null) {
+            return synergyMatcher.getMatches(view);
         }
         return new SynergyData[0];
     }
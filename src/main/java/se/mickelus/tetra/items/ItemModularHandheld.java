@@ -44,6 +44,7 @@ import se.mickelus.tetra.blocks.workbench.WorkbenchBlock;
 import se.mickelus.tetra.capabilities.Capability;
 import se.mickelus.tetra.module.ItemEffect;
 import se.mickelus.tetra.module.ItemEffectHandler;
+import se.mickelus.tetra.module.data.SynergyData;
 import se.mickelus.tetra.util.CastOptional;
 
 import javax.annotation.Nullable;
@@ -573,15 +574,20 @@ public class ItemModularHandheld extends ItemModular {
             return 0;
         }
 
+        return getStatSheet(itemStack).getDamage();
+    }
+
+    @Override
+    protected double computeDamageModifier(ItemStack itemStack, SynergyData[] synergies) {
         double damageModifier = getAllModules(itemStack).stream()
                 .mapToDouble(itemModule -> itemModule.getDamageModifier(itemStack))
                 .sum();
 
-        damageModifier = Arrays.stream(getSynergyData(itemStack))
+        damageModifier = Arrays.stream(synergies)
                 .mapToDouble(synergyData -> synergyData.damage)
                 .reduce(damageModifier, Double::sum);
 
-        damageModifier = Arrays.stream(getSynergyData(itemStack))
+        damageModifier = Arrays.stream(synergies)
                 .mapToDouble(synergyData -> synergyData.damageMultiplier)
                 .reduce(damageModifier, (a, b) -> a * b);
 
@@ -598,15 +604,20 @@ public class ItemModularHandheld extends ItemModular {
     }
 
     public double getSpeedModifier(ItemStack itemStack) {
+        return getStatSheet(itemStack).getSpeed();
+    }
+
+    @Override
+    protected double computeSpeedModifier(ItemStack itemStack, SynergyData[] synergies, int counterweightLevel, int integrityCost) {
         double speedModifier = getAllModules(itemStack).stream()
                 .map(itemModule -> itemModule.getSpeedModifier(itemStack))
                 .reduce(-2.4d, Double::sum);
 
-        speedModifier = Arrays.stream(getSynergyData(itemStack))
+        speedModifier = Arrays.stream(synergies)
                 .mapToDouble(synergyData -> synergyData.attackSpeed)
                 .reduce(speedModifier, Double::sum);
 
-        speedModifier = Arrays.stream(getSynergyData(itemStack))
+        speedModifier = Arrays.stream(synergies)
                 .mapToDouble(synergyData -> synergyData.attackSpeedMultiplier)
                 .reduce(speedModifier, (a, b) -> a * b);
 
@@ -614,7 +625,7 @@ public class ItemModularHandheld extends ItemModular {
                 .map(itemModule -> itemModule.getSpeedMultiplierModifier(itemStack))
                 .reduce(speedModifier, (a, b) -> a * b);
 
-        speedModifier *= getCounterWeightMultiplier(itemStack);
+        speedModifier *= getCounterWeightMultiplier(counterweightLevel, integrityCost);
 
         if (speedModifier < -4) {
             speedModifier = -3.9d;
@@ -624,10 +635,12 @@ public class ItemModularHandheld extends ItemModular {
     }
 
     public double getCounterWeightMultiplier(ItemStack itemStack) {
-        int counterWeightLevel = getEffectLevel(itemStack, ItemEffect.counterweight);
-        if (counterWeightLevel > 0) {
-            int integrityCost = getIntegrityCost(itemStack);
+        ItemStatSheet statSheet = getStatSheet(itemStack);
+        return getCounterWeightMultiplier(statSheet.getEffectLevel(ItemEffect.counterweight), statSheet.getIntegrityCost());
+    }
 
+    private double getCounterWeightMultiplier(int counterWeightLevel, int integrityCost) {
+        if (counterWeightLevel > 0) {
             return 0.5 + Math.abs(counterWeightLevel + integrityCost) * 0.2;
         }
         return 1;
@@ -0,0 +1,304 @@
+package se.mickelus.tetra.items;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import se.mickelus.tetra.NBTHelper;
+import se.mickelus.tetra.module.ItemModule;
+import se.mickelus.tetra.module.ItemModuleMajor;
+import se.mickelus.tetra.module.ItemUpgradeRegistry;
+import se.mickelus.tetra.module.data.ImprovementData;
+import se.mickelus.tetra.module.data.ModuleData;
+import se.mickelus.tetra.module.data.TweakData;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable, decoded view of the modules present on a modular itemstack. Resolving modules, variants, tweaks and improvements
+ * from the tag of a stack is costly and stat getters tend to do it several times per call, views are therefore cached per tag
+ * and dropped whenever modules, improvements or tweaks are written to that tag.
+ */
+public class ItemModularView {
+
+    // weak keys are compared by identity, which is what we want as tags are mutable
+    private static final Cache<CompoundNBT, ItemModularView> cache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(5000)
+            .build();
+
+    private static final ImprovementData[] noImprovements = new ImprovementData[0];
+
+    private final ItemModular item;
+
+    private final ItemModuleMajor[] majorModules;
+    private final ItemModule[] minorModules;
+
+    private final ImmutableList<ItemModule> modules;
+
+    // the following are indexed in the same order as modules
+    private final String[] slots;
+    private final ModuleData[] variants;
+    private final TweakData[][] tweaks;
+    private final ImprovementData[][] improvements;
+
+    private final ImprovementData[] allImprovements;
+
+    private final ItemConfiguration configuration;
+
+    // lazily computed, only used on the client
+    private ItemConfiguration modelConfiguration;
+
+    private ItemModularView(ItemModular item, CompoundNBT tag) {
+        this.item = item;
+
+        String[] majorKeys = item.getMajorModuleKeys();
+        String[] minorKeys = item.getMinorModuleKeys();
+
+        majorModules = new ItemModuleMajor[majorKeys.length];
+        minorModules = new ItemModule[minorKeys.length];
+
+        ImmutableList.Builder<ItemModule> moduleBuilder = ImmutableList.builder();
+        String[] slots = new String[majorKeys.length + minorKeys.length];
+        int count = 0;
+
+        for (int i = 0; i < majorKeys.length; i++) {
+            ItemModule module = ItemUpgradeRegistry.instance.getModule(tag.getString(majorKeys[i]));
+            if (module != null) {
+                moduleBuilder.add(module);
+                slots[count++] = majorKeys[i];
+
+                if (module instanceof ItemModuleMajor) {
+                    majorModules[i] = (ItemModuleMajor) module;
+                }
+            }
+        }
+
+        for (int i = 0; i < minorKeys.length; i++) {
+            ItemModule module = ItemUpgradeRegistry.instance.getModule(tag.getString(minorKeys[i]));
+            if (module != null) {
+                moduleBuilder.add(module);
+                slots[count++] = minorKeys[i];
+                minorModules[i] = module;
+            }
+        }
+
+        modules = moduleBuilder.build();
+        this.slots = Arrays.copyOf(slots, count);
+
+        variants = new ModuleData[count];
+        tweaks = new TweakData[count][];
+        improvements = new ImprovementData[count][];
+
+        for (int i = 0; i < count; i++) {
+            ItemModule module = modules.get(i);
+            variants[i] = module.readData(tag);
+            tweaks[i] = module.readTweaks(tag);
+
+            if (module instanceof ItemModuleMajor) {
+                improvements[i] = ((ItemModuleMajor) module).readImprovements(tag);
+            } else {
+                improvements[i] = noImprovements;
+            }
+        }
+
+        allImprovements = Arrays.stream(improvements)
+                .flatMap(Arrays::stream)
+                .toArray(ImprovementData[]::new);
+
+        configuration = ItemConfiguration.of(item, getConfigurationParts(tag));
+    }
+
+    /**
+     * Lists everything that may affect the stats of the item: slot, module, variant, improvements and tweak steps for each
+     * module. Improvement and tweak counts are included so that keys can't collide across the two lists. Modules and variants
+     * are represented by their interned ids, which are cheaper to hash and compare than their keys.
+     */
+    private Object[] getConfigurationParts(CompoundNBT tag) {
+        List<Object> parts = new ArrayList<>();
+        for (int i = 0; i < slots.length; i++) {
+            ItemModule module = modules.get(i);
+
+            parts.add(slots[i]);
+            parts.add(ItemUpgradeRegistry.instance.getModuleId(module.getKey()));
+            parts.add(ItemUpgradeRegistry.instance.getVariantId(variants[i].key));
+
+            parts.add(improvements[i].length);
+            for (ImprovementData improvement : improvements[i]) {
+                parts.add(improvement.key);
+                parts.add(improvement.level);
+            }
+
+            parts.add(tweaks[i].length);
+            for (TweakData tweak : tweaks[i]) {
+                parts.add(tweak.key);
+                parts.add(module.readTweakStep(tag, tweak));
+            }
+        }
+
+        return parts.toArray();
+    }
+
+    /**
+     * Returns the decoded view for the given itemstack, decoding and caching it if there is no up to date view available.
+     *
+     * @param itemStack A modular itemstack
+     * @return a view of the modules on the given itemstack, or null if the stack does not hold a modular item
+     */
+    public static ItemModularView get(ItemStack itemStack) {
+        if (itemStack.getItem() instanceof ItemModular) {
+            ItemModular item = (ItemModular) itemStack.getItem();
+            CompoundNBT tag = NBTHelper.getTag(itemStack);
+
+            ItemModularView view = cache.getIfPresent(tag);
+            if (view == null || view.item != item) {
+                view = new ItemModularView(item, tag);
+                cache.put(tag, view);
+            }
+
+            return view;
+        }
+
+        return null;
+    }
+
+    /**
+     * Drops the cached view for the given itemstack, should be called whenever module related data is written to the
+     * tag of a stack.
+     *
+     * @param itemStack An itemstack
+     */
+    public static void invalidate(ItemStack itemStack) {
+        if (itemStack.hasTag()) {
+            cache.invalidate(itemStack.getTag());
+        }
+    }
+
+    /**
+     * Drops all cached views, views hold references to module data and have to be dropped when that data is reloaded.
+     */
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private int indexOf(ItemModule module) {
+        for (int i = 0; i < variants.length; i++) {
+            if (modules.get(i) == module) {
+                return i;
+            }
+        }
+
+        return -1;
+    }
+
+    public ItemModular getItem() {
+        return item;
+    }
+
+    /**
+     * @return the interned configuration of the item, views of stacks with equal modules share the same configuration instance
+     */
+    public ItemConfiguration getConfiguration() {
+        return configuration;
+    }
+
+    /**
+     * Returns an interned key identifying the models of the item: modules, variants and improvements that provide models.
+     * Unlike the regular configuration this does not include tweaks and non-textured improvements, and it uses keys rather
+     * than ids so that it stays valid across data reloads.
+     *
+     * @return the interned model configuration of the item
+     */
+    public ItemConfiguration getModelConfiguration() {
+        if (modelConfiguration == null) {
+            List<Object> parts = new ArrayList<>();
+            for (int i = 0; i < slots.length; i++) {
+                parts.add(modules.get(i).getKey());
+                parts.add(variants[i].key);
+
+                for (ImprovementData improvement : improvements[i]) {
+                    if (improvement.textured) {
+                        parts.add(improvement.key);
+                        parts.add(improvement.level);
+                    }
+                }
+            }
+
+            modelConfiguration = ItemConfiguration.of(item, parts.toArray());
+        }
+
+        return modelConfiguration;
+    }
+
+    /**
+     * @return all modules present on the item, major modules first followed by minor modules
+     */
+    public ImmutableList<ItemModule> getModules() {
+        return modules;
+    }
+
+    /**
+     * @return a copy of the major module array, indexed by major slot. Contains null values for empty slots
+     */
+    public ItemModuleMajor[] getMajorModules() {
+        return majorModules.clone();
+    }
+
+    /**
+     * @return a copy of the minor module array, indexed by minor slot. Contains null values for empty slots
+     */
+    public ItemModule[] getMinorModules() {
+        return minorModules.clone();
+    }
+
+    public ItemModule getModule(String slot) {
+        for (int i = 0; i < slots.length; i++) {
+            if (slots[i].equals(slot)) {
+                return modules.get(i);
+            }
+        }
+
+        return null;
+    }
+
+    public boolean hasModule(ItemModule module) {
+        return indexOf(module) != -1;
+    }
+
+    /**
+     * @param module A module
+     * @return the variant data for the given module, or null if the module is not present on the item
+     */
+    public ModuleData getData(ItemModule module) {
+        int index = indexOf(module);
+        return index != -1 ? variants[index] : null;
+    }
+
+    /**
+     * @param module A module
+     * @return the active tweaks for the given module, or null if the module is not present on the item
+     */
+    public TweakData[] getTweaks(ItemModule module) {
+        int index = indexOf(module);
+        return index != -1 ? tweaks[index] : null;
+    }
+
+    /**
+     * @param module A module
+     * @return the active improvements for the given module, or null if the module is not present on the item
+     */
+    public ImprovementData[] getImprovements(ItemModule module) {
+        int index = indexOf(module);
+        return index != -1 ? improvements[index] : null;
+    }
+
+    /**
+     * @return a copy of the array holding all active improvements on the item
+     */
+    public ImprovementData[] getImprovements() {
+        return allImprovements.clone();
+    }
+}
@@ -0,0 +1,243 @@
+package se.mickelus.tetra.items;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableMap;
+import net.minecraft.enchantment.Enchantment;
+import net.minecraft.item.ItemStack;
+import se.mickelus.tetra.capabilities.Capability;
+import se.mickelus.tetra.module.ItemEffect;
+import se.mickelus.tetra.module.ItemModule;
+import se.mickelus.tetra.module.ItemUpgradeRegistry;
+import se.mickelus.tetra.module.data.EnchantmentMapping;
+import se.mickelus.tetra.module.data.ImprovementData;
+import se.mickelus.tetra.module.data.SynergyData;
+
+import java.util.*;
+import java.util.function.Supplier;
+
+/**
+ * Aggregated stats for a single item configuration, compiled once and shared by all itemstacks with the same configuration.
+ * Capability values are indexed by Capability ordinal, effect values by ItemEffect ordinal. Stats are stored as they would be
+ * for an intact item, it's up to the caller to check if the item is broken.
+ */
+public class ItemStatSheet {
+
+    private static final Capability[] capabilities = Capability.values();
+    private static final ItemEffect[] effects = ItemEffect.values();
+
+    // weak keys are compared by identity, configurations are interned so that's fine
+    private static final Cache<ItemConfiguration, ItemStatSheet> cache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(2000)
+            .build();
+
+    private final int durability;
+    private final float durabilityMultiplier;
+
+    private final int integrityGain;
+    private final int integrityCost;
+
+    private final double damage;
+    private final double speed;
+
+    private final int[] capabilityLevels;
+    private final float[] capabilityEfficiencies;
+    private final Set<Capability> capabilitySet;
+
+    private final int[] effectLevels;
+    private final double[] effectEfficiencies;
+    private final Set<ItemEffect> effectSet;
+
+    // levels as used by tetra when checking enchantment effects, and levels of enchantments applied to the stack
+    private final ImmutableMap<Enchantment, Integer> enchantmentLevels;
+    private final ImmutableMap<Enchantment, Integer> appliedEnchantments;
+
+    ItemStatSheet(ItemModular item, ItemStack itemStack) {
+        ItemModule[] modules = item.getAllModules(itemStack).toArray(new ItemModule[0]);
+        SynergyData[] synergies = item.getSynergyData(itemStack);
+
+        int durabilitySum = item.baseDurability;
+        float multiplier = 1;
+        int gain = 0;
+        int cost = 0;
+        EnumSet<Capability> capabilitySet = EnumSet.noneOf(Capability.class);
+        EnumSet<ItemEffect> effectSet = EnumSet.noneOf(ItemEffect.class);
+        for (ItemModule module : modules) {
+            durabilitySum += module.getDurability(itemStack);
+            multiplier *= module.getDurabilityMultiplier(itemStack);
+            gain += module.getIntegrityGain(itemStack);
+            cost += module.getIntegrityCost(itemStack);
+            capabilitySet.addAll(module.getCapabilities(itemStack));
+            effectSet.addAll(module.getEffects(itemStack));
+        }
+
+        durabilityMultiplier = multiplier;
+        durability = (int) (durabilitySum * multiplier);
+        integrityGain = gain;
+        integrityCost = cost;
+        this.capabilitySet = Collections.unmodifiableSet(capabilitySet);
+        this.effectSet = Collections.unmodifiableSet(effectSet);
+
+        capabilityLevels = new int[capabilities.length];
+        capabilityEfficiencies = new float[capabilities.length];
+        for (Capability capability : capabilities) {
+            compileCapability(itemStack, modules, synergies, capability);
+        }
+
+        effectLevels = new int[effects.length];
+        effectEfficiencies = new double[effects.length];
+        for (ItemEffect effect : effects) {
+            for (ItemModule module : modules) {
+                effectLevels[effect.ordinal()] += module.getEffectLevel(itemStack, effect);
+                effectEfficiencies[effect.ordinal()] += module.getEffectEfficiency(itemStack, effect);
+            }
+        }
+
+        Map<Enchantment, Integer> levels = new HashMap<>();
+        Map<Enchantment, Integer> applied = new HashMap<>();
+        compileEnchantments(item.getImprovements(itemStack), levels, applied);
+        enchantmentLevels = ImmutableMap.copyOf(levels);
+        appliedEnchantments = ImmutableMap.copyOf(applied);
+
+        damage = item.computeDamageModifier(itemStack, synergies);
+        speed = item.computeSpeedModifier(itemStack, synergies, effectLevels[ItemEffect.counterweight.ordinal()], integrityCost);
+    }
+
+    private void compileCapability(ItemStack itemStack, ItemModule[] modules, SynergyData[] synergies, Capability capability) {
+        int[] levels = new int[modules.length];
+        float[] efficiencies = new float[modules.length];
+
+        int highestLevel = -1;
+        for (int i = 0; i < modules.length; i++) {
+            levels[i] = modules[i].getCapabilityLevel(itemStack, capability);
+            efficiencies[i] = modules[i].getCapabilityEfficiency(itemStack, capability);
+            highestLevel = Math.max(highestLevel, levels[i]);
+        }
+
+        // grabs the highest efficiency from modules that also provide a capability level (from the module(s) that have the
+        // highest capability level), then adds the efficiency of all modules that have 0 capability level
+        float highestEfficiency = -Float.MAX_VALUE;
+        double zeroLevelEfficiency = 0;
+        boolean hasHighest = false;
+        for (int i = 0; i < modules.length; i++) {
+            if (levels[i] >= highestLevel) {
+                highestEfficiency = Math.max(highestEfficiency, efficiencies[i]);
+                hasHighest = true;
+            }
+
+            if (levels[i] == 0) {
+                zeroLevelEfficiency += efficiencies[i];
+            }
+        }
+
+        float efficiency = (hasHighest ? highestEfficiency : 1f) + (float) zeroLevelEfficiency;
+
+        int synergyLevel = 0;
+        double synergyEfficiency = 0;
+        for (SynergyData synergy : synergies) {
+            synergyLevel += synergy.capabilities.getLevel(capability);
+            synergyEfficiency += synergy.capabilities.getEfficiency(capability);
+        }
+
+        capabilityLevels[capability.ordinal()] = highestLevel + synergyLevel;
+        capabilityEfficiencies[capability.ordinal()] = Math.max(0, efficiency + (float) synergyEfficiency);
+    }
+
+    private static void compileEnchantments(ImprovementData[] improvements, Map<Enchantment, Integer> levels,
+            Map<Enchantment, Integer> applied) {
+        for (ImprovementData improvement : improvements) {
+            Map<Enchantment, Float> multipliers = new HashMap<>();
+            for (EnchantmentMapping mapping : ItemUpgradeRegistry.instance.getEnchantmentMappings(improvement.key)) {
+                multipliers.merge(mapping.enchantment, mapping.multiplier, Float::sum);
+                applied.merge(mapping.enchantment, (int) (improvement.level * mapping.multiplier), Integer::sum);
+            }
+
+            multipliers.forEach((enchantment, multiplier) ->
+                    levels.merge(enchantment, (int) (Math.max(1, improvement.level) * multiplier), Integer::sum));
+        }
+    }
+
+    /**
+     * Returns the stat sheet for the given configuration, compiling it using the given supplier if there is no sheet cached
+     * for that configuration.
+     */
+    static ItemStatSheet get(ItemConfiguration configuration, Supplier<ItemStatSheet> supplier) {
+        ItemStatSheet sheet = cache.getIfPresent(configuration);
+        if (sheet == null) {
+            sheet = supplier.get();
+            cache.put(configuration, sheet);
+        }
+
+        return sheet;
+    }
+
+    /**
+     * Drops all compiled stat sheets, has to be called when data that stats depend upon is reloaded.
+     */
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    public int getDurability() {
+        return durability;
+    }
+
+    public float getDurabilityMultiplier() {
+        return durabilityMultiplier;
+    }
+
+    public int getIntegrityGain() {
+        return integrityGain;
+    }
+
+    public int getIntegrityCost() {
+        return integrityCost;
+    }
+
+    public double getDamage() {
+        return damage;
+    }
+
+    public double getSpeed() {
+        return speed;
+    }
+
+    public int getCapabilityLevel(Capability capability) {
+        return capabilityLevels[capability.ordinal()];
+    }
+
+    public float getCapabilityEfficiency(Capability capability) {
+        return capabilityEfficiencies[capability.ordinal()];
+    }
+
+    public Set<Capability> getCapabilities() {
+        return capabilitySet;
+    }
+
+    public int getEffectLevel(ItemEffect effect) {
+        return effectLevels[effect.ordinal()];
+    }
+
+    public double getEffectEfficiency(ItemEffect effect) {
+        return effectEfficiencies[effect.ordinal()];
+    }
+
+    public Set<ItemEffect> getEffects() {
+        return effectSet;
+    }
+
+    /**
+     * @return the level tetra uses for the effects of the given enchantment, derived from improvements and enchantment mappings
+     */
+    public int getEnchantmentLevel(Enchantment enchantment) {
+        return enchantmentLevels.getOrDefault(enchantment, 0);
+    }
+
+    /**
+     * @return the enchantments that should be applied to stacks with this configuration, mapped to their levels
+     */
+    public Map<Enchantment, Integer> getAppliedEnchantments() {
+        return appliedEnchantments;
+    }
+}
@@ -0,0 +1,164 @@
+package se.mickelus.tetra.items;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import se.mickelus.tetra.module.ItemModule;
+import se.mickelus.tetra.module.data.SynergyData;
+
+import java.util.*;
+
+/**
+ * Synergies compiled into an index over interned module and variant ids. Each synergy is stored as a list of required id
+ * counts, and an inverted index from id to synergies is used to only check synergies that may match a configuration.
+ * Matches are memoized per item configuration, a new matcher is compiled each time synergy data is reloaded.
+ */
+public class SynergyMatcher {
+
+    private static final SynergyData[] noSynergies = new SynergyData[0];
+
+    private final SynergyData[] synergies;
+
+    private final Map<String, Integer> moduleIds = new HashMap<>();
+    private final Map<String, Integer> variantIds = new HashMap<>();
+
+    // pairs of id and required count, per synergy
+    private final int[][] moduleRequirements;
+    private final int[][] variantRequirements;
+
+    // synergy indices, per id
+    private final int[][] synergiesByModule;
+    private final int[][] synergiesByVariant;
+
+    private final Cache<ItemConfiguration, SynergyData[]> matchCache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(2000)
+            .build();
+
+    public SynergyMatcher(SynergyData[] synergies) {
+        this.synergies = synergies;
+
+        moduleRequirements = new int[synergies.length][];
+        variantRequirements = new int[synergies.length][];
+
+        for (int i = 0; i < synergies.length; i++) {
+            moduleRequirements[i] = compileRequirements(synergies[i].modules, moduleIds);
+            variantRequirements[i] = compileRequirements(synergies[i].moduleVariants, variantIds);
+        }
+
+        synergiesByModule = invert(moduleRequirements, moduleIds.size());
+        synergiesByVariant = invert(variantRequirements, variantIds.size());
+    }
+
+    private static int[] compileRequirements(String[] keys, Map<String, Integer> ids) {
+        Map<Integer, Integer> counts = new LinkedHashMap<>();
+        for (String key : keys) {
+            Integer id = ids.computeIfAbsent(key, k -> ids.size());
+            counts.merge(id, 1, Integer::sum);
+        }
+
+        int[] result = new int[counts.size() * 2];
+        int i = 0;
+        for (Map.Entry<Integer, Integer> entry : counts.entrySet()) {
+            result[i++] = entry.getKey();
+            result[i++] = entry.getValue();
+        }
+
+        return result;
+    }
+
+    private static int[][] invert(int[][] requirements, int idCount) {
+        List<List<Integer>> index = new ArrayList<>(idCount);
+        for (int i = 0; i < idCount; i++) {
+            index.add(new ArrayList<>());
+        }
+
+        for (int synergy = 0; synergy < requirements.length; synergy++) {
+            for (int i = 0; i < requirements[synergy].length; i += 2) {
+                index.get(requirements[synergy][i]).add(synergy);
+            }
+        }
+
+        return index.stream()
+                .map(list -> list.stream().mapToInt(Integer::intValue).toArray())
+                .toArray(int[][]::new);
+    }
+
+    public boolean isEmpty() {
+        return synergies.length == 0;
+    }
+
+    /**
+     * @return all synergies known by this matcher, regardless of if they are active or not
+     */
+    public SynergyData[] getSynergies() {
+        return synergies;
+    }
+
+    /**
+     * Returns the synergies that are active for the configuration of the given view, in the same order as they were passed to
+     * the matcher. The returned array is shared and must not be modified.
+     *
+     * @param view A decoded modular item
+     * @return An array of active synergies
+     */
+    public SynergyData[] getMatches(ItemModularView view) {
+        if (synergies.length == 0) {
+            return noSynergies;
+        }
+
+        SynergyData[] result = matchCache.getIfPresent(view.getConfiguration());
+        if (result == null) {
+            result = match(view);
+            matchCache.put(view.getConfiguration(), result);
+        }
+
+        return result;
+    }
+
+    private SynergyData[] match(ItemModularView view) {
+        int[] moduleCounts = new int[moduleIds.size()];
+        int[] variantCounts = new int[variantIds.size()];
+        BitSet candidates = new BitSet(synergies.length);
+
+        for (ItemModule module : view.getModules()) {
+            Integer moduleId = moduleIds.get(module.getUnlocalizedName());
+            if (moduleId != null) {
+                moduleCounts[moduleId]++;
+                for (int synergy : synergiesByModule[moduleId]) {
+                    candidates.set(synergy);
+                }
+            }
+
+            Integer variantId = variantIds.get(view.getData(module).key);
+            if (variantId != null) {
+                variantCounts[variantId]++;
+                for (int synergy : synergiesByVariant[variantId]) {
+                    candidates.set(synergy);
+                }
+            }
+        }
+
+        List<SynergyData> result = new ArrayList<>();
+        for (int i = candidates.nextSetBit(0); i >= 0; i = candidates.nextSetBit(i + 1)) {
+            if (fulfills(variantRequirements[i], variantCounts) || fulfills(moduleRequirements[i], moduleCounts)) {
+                result.add(synergies[i]);
+            }
+        }
+
+        return result.isEmpty() ? noSynergies : result.toArray(new SynergyData[0]);
+    }
+
+    private static boolean fulfills(int[] requirements, int[] counts) {
+        if (requirements.length == 0) {
+            return false;
+        }
+
+        for (int i = 0; i < requirements.length; i += 2) {
+            if (counts[requirements[i]] < requirements[i + 1]) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+}
@@ -24,6 +24,7 @@ import se.mickelus.tetra.items.TetraItemGroup;
 import se.mickelus.tetra.module.ItemUpgradeRegistry;
 import se.mickelus.tetra.module.MultiSlotModule;
 import se.mickelus.tetra.module.Priority;
+import se.mickelus.tetra.module.data.SynergyData;
 import se.mickelus.tetra.module.schema.BookEnchantSchema;
 import se.mickelus.tetra.module.schema.RemoveSchema;
 import se.mickelus.tetra.module.schema.RepairSchema;
@@ -177,7 +178,7 @@ public class ItemDuplexToolModular extends ItemModularHandheld {
 
     @Override
     public void init(PacketHandler packetHandler) {
-        DataManager.synergyData.onReload(() -> synergies = DataManager.instance.getSynergyData("duplex"));
+        DataManager.synergyData.onReload(() -> setSynergies(DataManager.instance.getSynergyData("duplex")));
     }
 
     @Override
@@ -227,11 +228,7 @@ public class ItemDuplexToolModular extends ItemModularHandheld {
     }
 
     @Override
-    public double getDamageModifier(ItemStack itemStack) {
-        if (isBroken(itemStack)) {
-            return 0;
-        }
-
+    protected double computeDamageModifier(ItemStack itemStack, SynergyData[] synergies) {
         // only use the damage from the highest damaging head
         double damageModifier = Stream.of(getModuleFromSlot(itemStack, headLeftKey), getModuleFromSlot(itemStack, headRightKey))
                 .filter(Objects::nonNull)
@@ -244,11 +241,11 @@ public class ItemDuplexToolModular extends ItemModularHandheld {
                 .map(itemModule -> itemModule.getDamageModifier(itemStack))
                 .reduce(damageModifier, Double::sum);
 
-        damageModifier = Arrays.stream(getSynergyData(itemStack))
+        damageModifier = Arrays.stream(synergies)
                 .mapToDouble(synergyData -> synergyData.damage)
                 .reduce(damageModifier, Double::sum);
 
-        damageModifier = Arrays.stream(getSynergyData(itemStack))
+        damageModifier = Arrays.stream(synergies)
                 .mapToDouble(synergyData -> synergyData.damageMultiplier)
                 .reduce(damageModifier, (a, b) -> a * b);
 
@@ -257,5 +254,3 @@ public class ItemDuplexToolModular extends ItemModularHandheld {
                 .reduce(damageModifier, (a, b) -> a * b);
     }
 }
-
-
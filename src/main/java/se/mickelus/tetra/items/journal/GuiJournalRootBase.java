@@ -30,6 +30,10 @@ public class GuiJournalRootBase extends GuiElement {
 
     }
 
+    public void onScroll(double amount) {
+
+    }
+
     @Override
     protected void onShow() {
         hideAnimation.stop();
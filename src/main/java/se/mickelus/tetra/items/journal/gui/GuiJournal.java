@@ -107,6 +107,13 @@ public class GuiJournal extends Screen {
         return super.mouseClicked(mouseX, mouseY, mouseButton);
     }
 
+    @Override
+    public boolean mouseScrolled(double mouseX, double mouseY, double amount) {
+        currentPage.onScroll(amount);
+
+        return super.mouseScrolled(mouseX, mouseY, amount);
+    }
+
     @Override
     public boolean charTyped(char typecChar, int keyCode) {
         currentPage.charTyped(typecChar);
@@ -56,6 +56,15 @@ public class GuiJournalCraftRoot extends GuiJournalRootBase {
         }
     }
 
+    @Override
+    public void onScroll(double amount) {
+        if (schemasView.isVisible()) {
+            schemasView.onScroll(amount);
+        } else if (schemaView.isVisible()) {
+            schemaView.onScroll(amount);
+        }
+    }
+
     private void onBreadcrumbClick(int depth) {
         switch (depth) {
             case 0:
@@ -3,6 +3,7 @@ package se.mickelus.tetra.items.journal.gui.craft;
 import se.mickelus.mgui.gui.GuiElement;
 import se.mickelus.tetra.items.ItemModular;
 import se.mickelus.tetra.module.schema.OutcomePreview;
+import se.mickelus.tetra.module.schema.OutcomePreviewService;
 import se.mickelus.tetra.module.schema.UpgradeSchema;
 
 public class GuiJournalSchema extends GuiElement {
@@ -13,6 +14,11 @@ public class GuiJournalSchema extends GuiElement {
     private OutcomePreview selectedVariant;
     private OutcomePreview hoveredVariant;
 
+    // variants to show in the detail once their preview stacks have been built, see updateDetail
+    private boolean detailPending;
+    private OutcomePreview pendingSelected;
+    private OutcomePreview pendingHovered;
+
     String slot;
 
     public GuiJournalSchema(int x, int y, int width, int height) {
@@ -33,18 +39,18 @@ public class GuiJournalSchema extends GuiElement {
 
         selectedVariant = null;
         hoveredVariant = null;
-        detail.updateVariant(null, null, slot);
+        updateDetail(null, null);
     }
 
     private void onVariantHover(OutcomePreview outcome) {
         hoveredVariant = outcome;
 
-        detail.updateVariant(selectedVariant, hoveredVariant, slot);
+        updateDetail(selectedVariant, hoveredVariant);
     }
 
     private void onVariantBlur(OutcomePreview outcome) {
         if (outcome.equals(hoveredVariant)) {
-            detail.updateVariant(selectedVariant, null, slot);
+            updateDetail(selectedVariant, null);
         }
     }
 
@@ -53,7 +59,40 @@ public class GuiJournalSchema extends GuiElement {
 
         list.updateSelection(outcome);
 
-        detail.updateVariant(selectedVariant, hoveredVariant, slot);
+        updateDetail(selectedVariant, hoveredVariant);
+    }
+
+    /**
+     * The detail view reads the preview stacks of the variants, which are built off thread. If the stacks are not built yet
+     * the detail is updated from draw once they are, rather than building them on the client thread.
+     */
+    private void updateDetail(OutcomePreview selected, OutcomePreview hovered) {
+        if (isItemStackBuilt(selected) && isItemStackBuilt(hovered)) {
+            detailPending = false;
+            detail.updateVariant(selected, hovered, slot);
+        } else {
+            detailPending = true;
+            pendingSelected = selected;
+            pendingHovered = hovered;
+            OutcomePreviewService.prepareItemStacks(selected, hovered);
+        }
+    }
+
+    private static boolean isItemStackBuilt(OutcomePreview outcome) {
+        return outcome == null || outcome.isItemStackBuilt();
+    }
+
+    @Override
+    public void draw(int refX, int refY, int screenWidth, int screenHeight, int mouseX, int mouseY, float opacity) {
+        if (detailPending && isItemStackBuilt(pendingSelected) && isItemStackBuilt(pendingHovered)) {
+            updateDetail(pendingSelected, pendingHovered);
+        }
+
+        super.draw(refX, refY, screenWidth, screenHeight, mouseX, mouseY, opacity);
+    }
+
+    public void onScroll(double amount) {
+        list.onScroll(amount);
     }
 
     public void animateOpen() {
@@ -4,6 +4,7 @@ import se.mickelus.tetra.blocks.workbench.gui.GuiSchemaListItem;
 import se.mickelus.mgui.gui.GuiElement;
 import se.mickelus.mgui.gui.animation.Applier;
 import se.mickelus.mgui.gui.animation.KeyframeAnimation;
+import se.mickelus.tetra.gui.GuiVirtualList;
 import se.mickelus.tetra.items.ItemModular;
 import se.mickelus.tetra.module.ItemUpgradeRegistry;
 import se.mickelus.tetra.module.schema.SchemaRarity;
@@ -12,12 +13,18 @@ import se.mickelus.tetra.module.schema.UpgradeSchema;
 import se.mickelus.tetra.util.Filter;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class GuiJournalSchemas extends GuiElement {
 
+    private static final int pageLines = 8;
+
     private Consumer<UpgradeSchema> onSchemaSelect;
 
+    private GuiVirtualList<UpgradeSchema> list;
+
     private KeyframeAnimation openAnimation;
 
     private KeyframeAnimation showAnimation;
@@ -28,6 +35,14 @@ public class GuiJournalSchemas extends GuiElement {
 
         this.onSchemaSelect = onSchemaSelect;
 
+        list = new GuiVirtualList<>(0, 0, width, height, 103, 106,
+                (index, schema) -> new GuiSchemaListItem(0, 0, 103, schema, () -> this.onSchemaSelect.accept(schema)),
+                (element, index, schema) -> {
+                    element.setY(index % pageLines * 14);
+                    ((GuiSchemaListItem) element).setSchema(schema, () -> this.onSchemaSelect.accept(schema));
+                });
+        addChild(list);
+
         openAnimation = new KeyframeAnimation(80, this)
                 .applyTo(new Applier.Opacity(0, 1), new Applier.TranslateY(y - 5, y))
                 .withDelay(120);
@@ -41,26 +56,20 @@ public class GuiJournalSchemas extends GuiElement {
     }
 
     public void update(ItemModular item, String slot) {
-        int offset = 0;
-        int pageLines = 8;
-        UpgradeSchema[] schemas = Arrays.stream(ItemUpgradeRegistry.instance.getSchemas(slot))
+        List<UpgradeSchema> schemas = Arrays.stream(ItemUpgradeRegistry.instance.getSchemas(slot))
                 .filter(schema -> !schema.isHoning())
                 .filter(schema -> !schema.getRarity().equals(SchemaRarity.temporary))
                 .filter(schema -> !schema.getType().equals(SchemaType.improvement))
                 .filter(Filter.distinct(UpgradeSchema::getName))
-                .toArray(UpgradeSchema[]::new);
+                .collect(Collectors.toList());
 
-        int count = schemas.length;
-
-        clearChildren();
+        // list items are only bound to schemas that are in view
+        list.setEntries(schemas, index -> index / pageLines * 106);
+    }
 
-        for (int i = 0; i < count; i++) {
-            UpgradeSchema schema = schemas[i + offset];
-            addChild(new GuiSchemaListItem(
-                    i / pageLines * 106,
-                    i % pageLines * 14,
-                    103,
-                    schema, () -> onSchemaSelect.accept(schema)));
+    public void onScroll(double amount) {
+        if (list.hasFocus()) {
+            list.scroll(amount > 0 ? -1 : 1);
         }
     }
 
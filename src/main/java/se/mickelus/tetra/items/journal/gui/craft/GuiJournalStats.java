@@ -9,6 +9,7 @@ import se.mickelus.mgui.gui.GuiElement;
 import se.mickelus.tetra.gui.statbar.GuiStatBarCapability;
 import se.mickelus.tetra.gui.statbar.GuiStatBase;
 import se.mickelus.tetra.gui.statbar.GuiStats;
+import se.mickelus.tetra.gui.statbar.StatSnapshot;
 import se.mickelus.tetra.items.ItemModular;
 
 import java.util.Arrays;
@@ -21,6 +22,9 @@ public class GuiJournalStats extends GuiElement {
     private List<GuiStatBase> bars;
     private GuiElement barGroup;
 
+    // the input that the bars were last updated with
+    private StatSnapshot snapshot;
+
     public GuiJournalStats(int x, int y) {
         super(x, y, 200, 52);
 
@@ -68,10 +72,20 @@ public class GuiJournalStats extends GuiElement {
         bars.forEach(bar -> bar.setAttachmentAnchor(GuiAttachment.bottomCenter));
     }
 
+    /**
+     * Updates the bars to show stats for the given stacks, does nothing if the input is equal to what the bars were last
+     * updated with.
+     */
     public void update(ItemStack itemStack, ItemStack previewStack, String slot, String improvement, PlayerEntity player) {
         boolean shouldShow = !itemStack.isEmpty() && itemStack.getItem() instanceof ItemModular;
         setVisible(shouldShow);
         if (shouldShow) {
+            StatSnapshot updated = StatSnapshot.update(snapshot, player, itemStack, previewStack, slot, improvement);
+            if (updated == null) {
+                return;
+            }
+            snapshot = updated;
+
             barGroup.clearChildren();
             bars.stream()
                     .filter(bar -> bar.shouldShow(player, itemStack, previewStack, slot, improvement))
@@ -109,9 +109,9 @@ public class GuiJournalVariantDetail extends GuiElement {
             variantLabel.setString(I18n.format(baseOutcome.key));
 
             synergyIndicator.setX(variantLabel.getWidth() + 4);
-            synergyIndicator.update(baseOutcome.itemStack, slot);
+            synergyIndicator.update(baseOutcome.getItemStack(), slot);
 
-            ItemStack improvementStack = baseOutcome.itemStack;
+            ItemStack improvementStack = baseOutcome.getItemStack();
             UpgradeSchema[] improvementSchemas = Arrays.stream(ItemUpgradeRegistry.instance.getSchemas(slot))
                     .filter(improvementSchema -> SchemaType.improvement.equals(improvementSchema.getType()))
                     .filter(improvementSchema -> improvementSchema.isApplicableForItem(improvementStack))
@@ -141,8 +141,8 @@ public class GuiJournalVariantDetail extends GuiElement {
                 material.setItem(null);
             }
 
-            stats.update(selectedOutcome != null ? selectedOutcome.itemStack : hoveredOutcome.itemStack,
-                    baseOutcome.itemStack,null, null, Minecraft.getInstance().player);
+            stats.update(selectedOutcome != null ? selectedOutcome.getItemStack() : hoveredOutcome.getItemStack(),
+                    baseOutcome.getItemStack(),null, null, Minecraft.getInstance().player);
 
             show();
         } else {
@@ -2,6 +2,8 @@ package se.mickelus.tetra.items.journal.gui.craft;
 
 import se.mickelus.mgui.gui.GuiClickable;
 import se.mickelus.mgui.gui.GuiTexture;
+import se.mickelus.mgui.gui.animation.Applier;
+import se.mickelus.mgui.gui.animation.KeyframeAnimation;
 import se.mickelus.tetra.blocks.workbench.gui.GuiModuleGlyph;
 import se.mickelus.tetra.gui.GuiColors;
 import se.mickelus.tetra.gui.GuiTextures;
@@ -11,20 +13,25 @@ import java.util.function.Consumer;
 
 public class GuiJournalVariantItem extends GuiClickable {
     protected GuiTexture backdrop;
+    protected GuiModuleGlyph glyph;
 
     protected OutcomePreview outcome;
     protected Consumer<OutcomePreview> onHover;
     protected Consumer<OutcomePreview> onBlur;
+    protected Consumer<OutcomePreview> onSelect;
 
     protected boolean isMuted = false;
 
+    private KeyframeAnimation showAnimation;
+
     public GuiJournalVariantItem(int x, int y, int width, int height, OutcomePreview outcome,
             Consumer<OutcomePreview> onHover, Consumer<OutcomePreview> onBlur, Consumer<OutcomePreview> onSelect) {
-        super(x, y, width, height, () -> onSelect.accept(outcome));
+        super(x, y, width, height, () -> {});
 
         this.outcome = outcome;
         this.onHover = onHover;
         this.onBlur = onBlur;
+        this.onSelect = onSelect;
     }
 
     public GuiJournalVariantItem(int x, int y, OutcomePreview outcome,
@@ -34,7 +41,16 @@ public class GuiJournalVariantItem extends GuiClickable {
         backdrop = new GuiTexture(0, 0, 11, 11, 68, 0, GuiTextures.workbench);
         addChild(backdrop);
 
-        addChild(new GuiModuleGlyph(2, 2, 8, 8, outcome.glyph).setShift(false));
+        glyph = new GuiModuleGlyph(2, 2, 8, 8, outcome.glyph).setShift(false);
+        addChild(glyph);
+    }
+
+    /**
+     * Rebinds this item to another outcome, allowing items to be reused as the outcomes they display scroll in and out of view
+     */
+    public void setOutcome(OutcomePreview outcome) {
+        this.outcome = outcome;
+        glyph.setGlyph(outcome.glyph);
     }
 
     public void updateSelection(OutcomePreview outcome) {
@@ -42,6 +58,30 @@ public class GuiJournalVariantItem extends GuiClickable {
         backdrop.setColor(isMuted ? GuiColors.muted : GuiColors.normal);
     }
 
+    public void animateIn(int delay) {
+        if (showAnimation != null) {
+            showAnimation.stop();
+        }
+
+        showAnimation = new KeyframeAnimation(80, this)
+                .applyTo(getShowAppliers())
+                .withDelay(delay);
+        showAnimation.start();
+    }
+
+    protected Applier[] getShowAppliers() {
+        return new Applier[] { new Applier.Opacity(0, 1), new Applier.TranslateY(-5, 0, true) };
+    }
+
+    @Override
+    public boolean onClick(int x, int y) {
+        if (super.onClick(x, y)) {
+            onSelect.accept(outcome);
+            return true;
+        }
+        return false;
+    }
+
     @Override
     protected void onFocus() {
         super.onFocus();
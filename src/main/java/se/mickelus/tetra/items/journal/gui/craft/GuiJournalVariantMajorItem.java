@@ -2,6 +2,7 @@ package se.mickelus.tetra.items.journal.gui.craft;
 
 import se.mickelus.tetra.blocks.workbench.gui.GuiModuleGlyph;
 import se.mickelus.mgui.gui.*;
+import se.mickelus.mgui.gui.animation.Applier;
 import se.mickelus.tetra.gui.GuiTextures;
 import se.mickelus.tetra.module.schema.OutcomePreview;
 
@@ -16,7 +17,13 @@ public class GuiJournalVariantMajorItem extends GuiJournalVariantItem {
         backdrop = new GuiTexture(1, 0, 15, 15, 52,0, GuiTextures.workbench);
         addChild(backdrop);
 
-        addChild(new GuiModuleGlyph(0, 0, 16, 16, outcome.glyph).setShift(false));
+        glyph = new GuiModuleGlyph(0, 0, 16, 16, outcome.glyph).setShift(false);
+        addChild(glyph);
+    }
+
+    @Override
+    protected Applier[] getShowAppliers() {
+        return new Applier[] { new Applier.Opacity(0, 1), new Applier.TranslateX(-5, 0, true), new Applier.TranslateY(-5, 0, true) };
     }
 
     @Override
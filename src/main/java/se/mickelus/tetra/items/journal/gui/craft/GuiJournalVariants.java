@@ -8,23 +8,29 @@ import se.mickelus.mgui.gui.GuiString;
 import se.mickelus.mgui.gui.GuiStringSmall;
 import se.mickelus.mgui.gui.animation.Applier;
 import se.mickelus.mgui.gui.animation.KeyframeAnimation;
+import se.mickelus.tetra.gui.GuiVirtualList;
 import se.mickelus.tetra.items.ItemModular;
 import se.mickelus.tetra.module.schema.OutcomePreview;
+import se.mickelus.tetra.module.schema.OutcomePreviewService;
 import se.mickelus.tetra.module.schema.SchemaType;
 import se.mickelus.tetra.module.schema.UpgradeSchema;
 
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Consumer;
+import java.util.stream.Collectors;
 
 public class GuiJournalVariants extends GuiElement {
 
-    private GuiElement variantsContainer;
+    private GuiVirtualList<OutcomePreview> variantList;
 
-    private GuiJournalVariantItem[] variants;
+    private OutcomePreview selectedOutcome;
 
     private KeyframeAnimation labelAnimation;
 
-    private KeyframeAnimation[] itemAnimations;
+    private CompletableFuture<OutcomePreview[]> pendingPreviews;
 
     private Consumer<OutcomePreview> onVariantHover;
     private Consumer<OutcomePreview> onVariantBlur;
@@ -38,63 +44,101 @@ public class GuiJournalVariants extends GuiElement {
         variantsLabel.setColor(GuiColors.muted);
         addChild(variantsLabel);
 
-        variants = new GuiJournalVariantItem[0];
-
-        variantsContainer = new GuiElement(0, 8, width, height);
-        addChild(variantsContainer);
+        // variant items are only bound to outcomes that are in view
+        variantList = new GuiVirtualList<>(0, 8, width, height - 8, 16, 40, this::createVariant,
+                new GuiVirtualList.ElementBinder<OutcomePreview>() {
+                    @Override
+                    public boolean canBind(GuiElement element, OutcomePreview outcome) {
+                        return (element instanceof GuiJournalVariantMajorItem) != SchemaType.minor.equals(outcome.type);
+                    }
+
+                    @Override
+                    public void bind(GuiElement element, int index, OutcomePreview outcome) {
+                        bindVariant((GuiJournalVariantItem) element, index, outcome);
+                    }
+                });
+        addChild(variantList);
 
         labelAnimation = new KeyframeAnimation(100, variantsLabel)
                 .applyTo(new Applier.Opacity(0, 1), new Applier.TranslateX(x - 5, x));
 
-        itemAnimations = new KeyframeAnimation[0];
-
         this.onVariantHover = onVariantHover;
         this.onVariantBlur = onVariantBlur;
         this.onVariantSelect = onVariantSelect;
     }
 
     public void update(ItemModular item, String slot, UpgradeSchema schema) {
-        variantsContainer.clearChildren();
+        selectedOutcome = null;
+        variantList.setEntries(Collections.emptyList(), index -> 0);
+
+        // previews are computed off thread, variants are added once they are available
+        pendingPreviews = OutcomePreviewService.getPreviews(schema, new ItemStack(item), slot);
+        if (pendingPreviews.isDone()) {
+            updateVariants(pendingPreviews.join());
+            pendingPreviews = null;
+        }
+    }
 
-        OutcomePreview[] outcomes = Arrays.stream(schema.getPreviews(new ItemStack(item), slot))
+    private void updateVariants(OutcomePreview[] previews) {
+        List<OutcomePreview> outcomes = Arrays.stream(previews)
                 .filter(preview -> preview.materials.length != 0)
-                .toArray(OutcomePreview[]::new);
-
-        variants = new GuiJournalVariantItem[outcomes.length];
-        itemAnimations = new KeyframeAnimation[outcomes.length];
-        for (int i = 0; i < outcomes.length; i++) {
-            if (SchemaType.minor.equals(outcomes[i].type)) {
-                variants[i] = new GuiJournalVariantItem((i / 2) * 15, (i % 2) * 15, outcomes[i],
-                        onVariantHover, onVariantBlur, onVariantSelect);
-                variantsContainer.addChild(variants[i]);
-
-                itemAnimations[i] = new KeyframeAnimation(80, variants[i])
-                        .applyTo(new Applier.Opacity(0, 1),
-                                new Applier.TranslateY(-5, 0, true))
-                        .withDelay(40 + 40 * (i / 2));
-            } else {
-                variants[i] = new GuiJournalVariantMajorItem((i / 2) * 20 + (i % 2) * 10, (i % 2) * 15, outcomes[i],
-                        onVariantHover, onVariantBlur, onVariantSelect);
-                variantsContainer.addChild(variants[i]);
-
-                itemAnimations[i] = new KeyframeAnimation(80, variants[i])
-                        .applyTo(new Applier.Opacity(0, 1),
-                                new Applier.TranslateX(-5, 0, true),
-                                new Applier.TranslateY(-5, 0, true))
-                        .withDelay(40 + 40 * (i / 2));
-            }
+                .collect(Collectors.toList());
+
+        variantList.setEntries(outcomes, index -> SchemaType.minor.equals(outcomes.get(index).type)
+                ? (index / 2) * 15
+                : (index / 2) * 20 + (index % 2) * 10);
+    }
+
+    private GuiElement createVariant(int index, OutcomePreview outcome) {
+        if (SchemaType.minor.equals(outcome.type)) {
+            return new GuiJournalVariantItem(0, 0, outcome, onVariantHover, onVariantBlur, onVariantSelect);
+        }
+
+        return new GuiJournalVariantMajorItem(0, 0, outcome, onVariantHover, onVariantBlur, onVariantSelect);
+    }
+
+    private void bindVariant(GuiJournalVariantItem variant, int index, OutcomePreview outcome) {
+        // the detail view needs the preview stack once the variant is hovered, build it ahead of time off thread
+        OutcomePreviewService.prepareItemStacks(outcome);
+
+        variant.setY((index % 2) * 15);
+        variant.setOutcome(outcome);
+        variant.updateSelection(selectedOutcome);
+
+        if (isVisible()) {
+            animateVariant(variant);
         }
     }
 
+    private void animateVariant(GuiJournalVariantItem variant) {
+        // stagger by position rather than index so that variants scrolled into view animate in from their column
+        variant.animateIn(40 + 2 * variant.getX());
+    }
+
+    @Override
+    public void draw(int refX, int refY, int screenWidth, int screenHeight, int mouseX, int mouseY, float opacity) {
+        if (pendingPreviews != null && pendingPreviews.isDone()) {
+            updateVariants(pendingPreviews.join());
+            pendingPreviews = null;
+        }
+
+        super.draw(refX, refY, screenWidth, screenHeight, mouseX, mouseY, opacity);
+    }
+
     public void updateSelection(OutcomePreview outcome) {
-        for (GuiJournalVariantItem variant: variants) {
-            variant.updateSelection(outcome);
+        selectedOutcome = outcome;
+        variantList.forEachElement(element -> ((GuiJournalVariantItem) element).updateSelection(outcome));
+    }
+
+    public void onScroll(double amount) {
+        if (variantList.hasFocus()) {
+            variantList.scroll(amount > 0 ? -1 : 1);
         }
     }
 
     @Override
     protected void onShow() {
         labelAnimation.start();
-        Arrays.stream(itemAnimations).forEach(KeyframeAnimation::start);
+        variantList.forEachElement(element -> animateVariant((GuiJournalVariantItem) element));
     }
 }
@@ -14,6 +14,7 @@ import org.apache.commons.lang3.ArrayUtils;
 import se.mickelus.tetra.NBTHelper;
 import se.mickelus.tetra.capabilities.Capability;
 import se.mickelus.tetra.capabilities.ICapabilityProvider;
+import se.mickelus.tetra.items.ItemModularView;
 import se.mickelus.tetra.module.data.ModuleData;
 import se.mickelus.tetra.module.data.ModuleModel;
 import se.mickelus.tetra.module.data.TweakData;
@@ -24,6 +25,9 @@ public abstract class ItemModule implements ICapabilityProvider {
 
     protected ModuleData[] data = new ModuleData[0];
 
+    // variant data indexed by variant id, rebuilt when data changes or when variant ids are reassigned
+    private volatile VariantTable variantTable;
+
     protected TweakData[] tweaks = new TweakData[0];
 
     protected String slotKey;
@@ -60,6 +64,8 @@ public abstract class ItemModule implements ICapabilityProvider {
 
         tag.putString(slotKey, moduleKey);
         tag.putString(dataKey, variantKey);
+
+        ItemModularView.invalidate(targetStack);
     }
 
     public ItemStack[] removeModule(ItemStack targetStack) {
@@ -68,6 +74,8 @@ public abstract class ItemModule implements ICapabilityProvider {
         tag.remove(slotKey);
         tag.remove(dataKey);
 
+        ItemModularView.invalidate(targetStack);
+
         return new ItemStack[0];
     }
 
@@ -76,16 +84,66 @@ public abstract class ItemModule implements ICapabilityProvider {
     }
 
     public ModuleData getData(ItemStack itemStack) {
-        CompoundNBT tag = NBTHelper.getTag(itemStack);
-        String dataName = tag.getString(this.dataKey);
+        ItemModularView view = ItemModularView.get(itemStack);
+        if (view != null) {
+            ModuleData moduleData = view.getData(this);
+            if (moduleData != null) {
+                return moduleData;
+            }
+        }
 
-        return getData(dataName);
+        return readData(NBTHelper.getTag(itemStack));
+    }
+
+    /**
+     * Reads the variant data for this module from the given tag, skipping the cached item view. Prefer using
+     * getData(ItemStack) unless the view itself is being built.
+     *
+     * @param tag The tag of an itemstack
+     * @return The variant data of this module for the given tag
+     */
+    public ModuleData readData(CompoundNBT tag) {
+        return getData(tag.getString(this.dataKey));
     }
 
     public ModuleData getData(String variantKey) {
-        return Arrays.stream(data)
-                .filter(moduleData -> moduleData.key.equals(variantKey))
-                .findAny().orElseGet(this::getDefaultData);
+        return getData(ItemUpgradeRegistry.instance.getVariantId(variantKey));
+    }
+
+    /**
+     * @param variantId A variant id, as assigned by the upgrade registry
+     * @return The variant data for the given id, or the default data if this module has no variant with that id
+     */
+    public ModuleData getData(int variantId) {
+        ModuleData moduleData = getVariantTable().get(variantId);
+        return moduleData != null ? moduleData : getDefaultData();
+    }
+
+    /**
+     * Sets the variant data for this module and indexes it by variant id. Ids for new variants are assigned on reload so
+     * this should be called every time the data for this module changes, after the upgrade registry has assigned new ids.
+     *
+     * @param data Variant data for this module, null is treated as no variants
+     */
+    protected void setData(ModuleData[] data) {
+        ModuleData[] variants = data != null ? data : new ModuleData[0];
+
+        this.data = variants;
+        variantTable = new VariantTable(variants, ItemUpgradeRegistry.instance.getVariantIdGeneration());
+    }
+
+    /**
+     * Tables of modules whose data did not change when data was reloaded are rebuilt here if variant ids were reassigned.
+     */
+    private VariantTable getVariantTable() {
+        VariantTable table = variantTable;
+        int generation = ItemUpgradeRegistry.instance.getVariantIdGeneration();
+        if (table == null || table.source != data || table.generation != generation) {
+            table = new VariantTable(data, generation);
+            variantTable = table;
+        }
+
+        return table;
     }
 
     public ModuleData getDefaultData() {
@@ -230,7 +288,24 @@ public abstract class ItemModule implements ICapabilityProvider {
     }
 
     public TweakData[] getTweaks(ItemStack itemStack) {
-        CompoundNBT tag = NBTHelper.getTag(itemStack);
+        ItemModularView view = ItemModularView.get(itemStack);
+        if (view != null) {
+            TweakData[] activeTweaks = view.getTweaks(this);
+            if (activeTweaks != null) {
+                return activeTweaks;
+            }
+        }
+
+        return readTweaks(NBTHelper.getTag(itemStack));
+    }
+
+    /**
+     * Reads the active tweaks for this module from the given tag, skipping the cached item view.
+     *
+     * @param tag The tag of an itemstack
+     * @return The tweaks that are active for this module
+     */
+    public TweakData[] readTweaks(CompoundNBT tag) {
         String variant = tag.getString(this.dataKey);
         return Arrays.stream(tweaks)
                 .filter(tweak -> variant.equals(tweak.variant))
@@ -244,11 +319,17 @@ public abstract class ItemModule implements ICapabilityProvider {
     }
 
     public int getTweakStep(ItemStack itemStack, TweakData tweak) {
-        return Math.max(Math.min(NBTHelper.getTag(itemStack).getInt(slotKey + ":" + tweak.key), tweak.steps), -tweak.steps);
+        return readTweakStep(NBTHelper.getTag(itemStack), tweak);
+    }
+
+    public int readTweakStep(CompoundNBT tag, TweakData tweak) {
+        return Math.max(Math.min(tag.getInt(slotKey + ":" + tweak.key), tweak.steps), -tweak.steps);
     }
 
     public void setTweakStep(ItemStack itemStack, String tweakKey, int step) {
         NBTHelper.getTag(itemStack).putInt(slotKey + ":" + tweakKey, step);
+
+        ItemModularView.invalidate(itemStack);
     }
 
     public double getDamageModifier(ItemStack itemStack) {
@@ -335,4 +416,37 @@ public abstract class ItemModule implements ICapabilityProvider {
     public Collection<Capability> getCapabilities(ItemStack itemStack) {
         return getData(itemStack).capabilities.getValues();
     }
+
+    /**
+     * Variant data indexed by variant id. The table only spans the ids of the variants of a module, offset by the lowest id,
+     * so that its size does not depend on the number of variants across all modules.
+     */
+    private static class VariantTable {
+        private final ModuleData[] source;
+        private final int generation;
+        private final int offset;
+        private final ModuleData[] table;
+
+        VariantTable(ModuleData[] source, int generation) {
+            this.source = source;
+            this.generation = generation;
+
+            int[] ids = Arrays.stream(source)
+                    .mapToInt(moduleData -> ItemUpgradeRegistry.instance.getVariantId(moduleData.key))
+                    .toArray();
+            offset = Arrays.stream(ids).filter(id -> id >= 0).min().orElse(0);
+            table = new ModuleData[Arrays.stream(ids).max().orElse(-1) - offset + 1];
+
+            for (int i = 0; i < ids.length; i++) {
+                if (ids[i] >= 0 && table[ids[i] - offset] == null) {
+                    table[ids[i] - offset] = source[i];
+                }
+            }
+        }
+
+        ModuleData get(int variantId) {
+            int index = variantId - offset;
+            return variantId >= 0 && index >= 0 && index < table.length ? table[index] : null;
+        }
+    }
 }
@@ -14,6 +14,7 @@ import se.mickelus.tetra.NBTHelper;
 import se.mickelus.tetra.TetraMod;
 import se.mickelus.tetra.capabilities.Capability;
 import se.mickelus.tetra.items.ItemModular;
+import se.mickelus.tetra.items.ItemModularView;
 import se.mickelus.tetra.module.data.ImprovementData;
 import se.mickelus.tetra.module.data.ModuleModel;
 import se.mickelus.tetra.module.data.TweakData;
@@ -123,17 +124,31 @@ public abstract class ItemModuleMajor extends ItemModule {
     }
 
     public ImprovementData getImprovement(ItemStack itemStack, String improvementKey) {
-        CompoundNBT tag = NBTHelper.getTag(itemStack);
-        return Arrays.stream(improvements)
+        return Arrays.stream(getImprovements(itemStack))
                 .filter(improvement -> improvementKey.equals(improvement.key))
-                .filter(improvement -> tag.contains(slotKey + ":" + improvement.key))
-                .filter(improvement -> improvement.level == tag.getInt(slotKey + ":" + improvement.key))
                 .findAny()
                 .orElse(null);
     }
 
     public ImprovementData[] getImprovements(ItemStack itemStack) {
-        CompoundNBT tag = NBTHelper.getTag(itemStack);
+        ItemModularView view = ItemModularView.get(itemStack);
+        if (view != null) {
+            ImprovementData[] activeImprovements = view.getImprovements(this);
+            if (activeImprovements != null) {
+                return activeImprovements;
+            }
+        }
+
+        return readImprovements(NBTHelper.getTag(itemStack));
+    }
+
+    /**
+     * Reads the active improvements for this module from the given tag, skipping the cached item view.
+     *
+     * @param tag The tag of an itemstack
+     * @return The improvements that are active for this module
+     */
+    public ImprovementData[] readImprovements(CompoundNBT tag) {
         return Arrays.stream(improvements)
             .filter(improvement -> tag.contains(slotKey + ":" + improvement.key))
             .filter(improvement -> improvement.level == tag.getInt(slotKey + ":" + improvement.key))
@@ -155,6 +170,8 @@ public abstract class ItemModuleMajor extends ItemModule {
     public void addImprovement(ItemStack itemStack, String improvementKey, int level) {
         removeCollidingImprovements(itemStack, improvementKey, level);
         NBTHelper.getTag(itemStack).putInt(slotKey + ":" + improvementKey, level);
+
+        ItemModularView.invalidate(itemStack);
     }
 
     public static void addImprovement(ItemStack itemStack, String slot, String improvement, int level) {
@@ -181,13 +198,14 @@ public abstract class ItemModuleMajor extends ItemModule {
 
     public static void removeImprovement(ItemStack itemStack, String slot, String improvement) {
         NBTHelper.getTag(itemStack).remove(slot + ":" + improvement);
+
+        ItemModularView.invalidate(itemStack);
     }
 
     @Override
-    public TweakData[] getTweaks(ItemStack itemStack) {
-        CompoundNBT tag = NBTHelper.getTag(itemStack);
+    public TweakData[] readTweaks(CompoundNBT tag) {
         String variant = tag.getString(this.dataKey);
-        String[] improvementKeys = Arrays.stream(getImprovements(itemStack))
+        String[] improvementKeys = Arrays.stream(readImprovements(tag))
                 .map(improvement -> improvement.key)
                 .toArray(String[]::new);
         return Arrays.stream(tweaks)
@@ -206,6 +224,8 @@ public abstract class ItemModuleMajor extends ItemModule {
 
         clearProgression(targetStack);
 
+        ItemModularView.invalidate(targetStack);
+
         return salvage;
     }
 
@@ -1,17 +1,30 @@
 package se.mickelus.tetra.module;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import net.minecraft.advancements.criterion.ItemPredicate;
 import net.minecraft.enchantment.Enchantment;
 import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.registries.ForgeRegistries;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import se.mickelus.tetra.capabilities.PlayerCapabilityAggregate;
 import se.mickelus.tetra.data.DataManager;
+import se.mickelus.tetra.items.ItemDisplayText;
 import se.mickelus.tetra.items.ItemModular;
+import se.mickelus.tetra.items.ItemModularView;
+import se.mickelus.tetra.items.ItemStatSheet;
 import se.mickelus.tetra.module.data.EnchantmentMapping;
 import se.mickelus.tetra.module.schema.*;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -24,89 +37,273 @@ public class ItemUpgradeRegistry {
     private List<Function<ItemStack, ItemStack>> replacementFunctions;
     private List<ReplacementDefinition> replacementDefinitions;
 
+    // replacement definitions that may match stacks of an item, resolved lazily per item. An empty array means that stacks
+    // of that item never have a replacement
+    private Map<Item, ReplacementDefinition[]> replacementCandidates;
+    private Map<ReplacementDefinition, Item> replacementItems;
+    private Set<ReplacementDefinition> itemOnlyReplacements;
+
     private Map<String, UpgradeSchema> schemaMap;
+
+    // schemas that may apply to stacks of an item or to a slot, resolved lazily and dropped when schemas are registered
+    private Map<Item, Set<UpgradeSchema>> schemasByItem;
+    private Map<String, UpgradeSchema[]> schemasBySlot;
     private Map<String, RepairDefinition> repairMap;
 
+    // schemas & repair definitions registered from each schema data file, used to unregister them when the file changes
+    private Map<ResourceLocation, List<UpgradeSchema>> schemasByFile;
+    private Map<ResourceLocation, List<RepairDefinition>> repairDefinitionsByFile;
+
     private Map<String, ItemModule> moduleMap;
 
-    private List<EnchantmentMapping> enchantmentMappings;
+    // dense ids for module and variant keys, module ids are assigned on registration and variant ids on module data reload.
+    // Variant ids are added on reload so that ids remain valid for modules whose data did not change, until ids of removed
+    // variants make up more than half of all ids. Ids are then reassigned and the generation is bumped
+    private Map<String, Integer> moduleIds;
+    private List<ItemModule> modulesById;
+    private volatile Map<String, Integer> variantIds;
+    private volatile String[] variantKeys;
+    private volatile int variantIdGeneration;
+
+    // improvement key -> mappings applied back to items, enchantment -> mappings extracted from items & books
+    private ImmutableListMultimap<String, EnchantmentMapping> applyMappings;
+    private ImmutableListMultimap<Enchantment, EnchantmentMapping> extractMappings;
 
     public ItemUpgradeRegistry() {
         instance = this;
         replacementFunctions = new ArrayList<> ();
         schemaMap = new HashMap<>();
+        schemasByItem = new ConcurrentHashMap<>();
+        schemasBySlot = new ConcurrentHashMap<>();
         repairMap = new HashMap<>();
+        schemasByFile = new HashMap<>();
+        repairDefinitionsByFile = new HashMap<>();
         moduleMap = new HashMap<>();
+        moduleIds = new HashMap<>();
+        modulesById = new ArrayList<>();
+        variantIds = Collections.emptyMap();
+        variantKeys = new String[0];
+
+        // this has to be registered before any module is created, as modules rely on variant ids when their data is reloaded
+        DataManager.moduleData.onReload(this::assignVariantIds);
+
+        // cached item views and stat sheets are derived from module, improvement, tweak & synergy data
+        DataManager.moduleData.onReload(this::invalidateItemCaches);
+        DataManager.improvementData.onReload(this::invalidateItemCaches);
+        DataManager.tweakData.onReload(this::invalidateItemCaches);
+        DataManager.synergyData.onReload(this::invalidateItemCaches);
+        DataManager.enchantmentData.onReload(this::invalidateItemCaches);
+
+        applyMappings = ImmutableListMultimap.of();
+        extractMappings = ImmutableListMultimap.of();
+        DataManager.enchantmentData.onReload(this::indexEnchantmentMappings);
 
         replacementDefinitions = Collections.emptyList();
+        replacementCandidates = new ConcurrentHashMap<>();
+        replacementItems = Collections.emptyMap();
+        itemOnlyReplacements = Collections.emptySet();
         DataManager.replacementData.onReload(() -> {
             replacementDefinitions = DataManager.replacementData.getData().values().stream()
                     .flatMap(Arrays::stream)
                     .filter(replacementDefinition -> replacementDefinition.predicate != null)
                     .collect(Collectors.toList());
+
+            indexReplacements();
+            PlayerCapabilityAggregate.invalidateAll();
         });
 
-        DataManager.schemaData.onReload(() -> {
-            DataManager.schemaData.getData().values().stream()
-                    .flatMap(Arrays::stream)
-                    .forEach(definition -> {
-                        if (definition.slots.length == definition.keySuffixes.length) {
-                            for (int i = 0; i < definition.slots.length; i++) {
-                                try {
-                                    registerConfigSchema(definition,
-                                            new ConfigSchema(definition, definition.keySuffixes[i], definition.slots[i]));
-                                } catch (InvalidSchemaException e) {
-                                    e.printMessage();
-                                }
-                            }
-                        } else {
-                            try {
-                                registerConfigSchema(definition, new ConfigSchema(definition));
-                            } catch (InvalidSchemaException e) {
-                                e.printMessage();
-                            }
-                        }
-                    });
+        DataManager.schemaData.onChange(changes -> {
+            changes.getChanged().forEach(this::unregisterConfigSchemas);
+            changes.getRemoved().forEach(this::unregisterConfigSchemas);
+
+            DataManager.schemaData.getData().entrySet().stream()
+                    .filter(entry -> changes.isModified(entry.getKey()))
+                    .forEach(entry -> registerConfigSchemas(entry.getKey(), entry.getValue()));
+
+            invalidateSchemaCaches();
         });
     }
 
+    private void assignVariantIds() {
+        List<String> currentKeys = DataManager.moduleData.getData().values().stream()
+                .flatMap(Arrays::stream)
+                .map(data -> data.key)
+                .filter(Objects::nonNull)
+                .distinct()
+                .collect(Collectors.toList());
+
+        boolean compact = variantKeys.length - currentKeys.stream().filter(variantIds::containsKey).count() > currentKeys.size();
+        Map<String, Integer> ids = compact ? new HashMap<>() : new HashMap<>(variantIds);
+        List<String> keys = compact ? new ArrayList<>() : new ArrayList<>(Arrays.asList(variantKeys));
+
+        currentKeys.stream()
+                .filter(key -> !ids.containsKey(key))
+                .forEach(key -> {
+                    ids.put(key, keys.size());
+                    keys.add(key);
+                });
+
+        variantKeys = keys.toArray(new String[0]);
+        variantIds = ids;
+
+        if (compact) {
+            logger.debug("Reassigned variant ids, {} variants", keys.size());
+            variantIdGeneration++;
+        }
+    }
+
+    private void indexEnchantmentMappings() {
+        ImmutableListMultimap.Builder<String, EnchantmentMapping> applyBuilder = ImmutableListMultimap.builder();
+        ImmutableListMultimap.Builder<Enchantment, EnchantmentMapping> extractBuilder = ImmutableListMultimap.builder();
+
+        DataManager.enchantmentData.getData().values().stream()
+                .flatMap(Arrays::stream)
+                .filter(mapping -> mapping.enchantment != null)
+                .forEach(mapping -> {
+                    if (mapping.apply && mapping.improvement != null) {
+                        applyBuilder.put(mapping.improvement, mapping);
+                    }
+
+                    if (mapping.extract) {
+                        extractBuilder.put(mapping.enchantment, mapping);
+                    }
+                });
+
+        applyMappings = applyBuilder.build();
+        extractMappings = extractBuilder.build();
+    }
+
+    private void invalidateItemCaches() {
+        ItemModularView.invalidateAll();
+        ItemStatSheet.invalidateAll();
+        PlayerCapabilityAggregate.invalidateAll();
+        ItemDisplayText.invalidateAll();
+        OutcomePreviewService.invalidateAll();
+    }
+
     public UpgradeSchema[] getAvailableSchemas(PlayerEntity player, ItemStack itemStack) {
-        return schemaMap.values().stream()
-                .filter(upgradeSchema -> playerHasSchema(player, itemStack, upgradeSchema))
+        PlayerSchemaVisibility visibility = PlayerSchemaVisibility.get(player);
+        return getSchemas(itemStack.getItem()).stream()
                 .filter(upgradeSchema -> upgradeSchema.isApplicableForItem(itemStack))
+                .filter(upgradeSchema -> visibility.isVisible(itemStack, upgradeSchema))
                 .toArray(UpgradeSchema[]::new);
     }
 
+    /**
+     * Same as getAvailableSchemas(PlayerEntity, ItemStack) but only returns schemas applicable for the given slot. Starts
+     * from the schemas for the slot and the item as those are indexed, before the more expensive stack and visibility
+     * checks. Visibility is checked last as it may scan the inventory of the player.
+     */
+    public UpgradeSchema[] getAvailableSchemas(PlayerEntity player, ItemStack itemStack, String slot) {
+        Set<UpgradeSchema> itemSchemas = getSchemas(itemStack.getItem());
+        PlayerSchemaVisibility visibility = PlayerSchemaVisibility.get(player);
+        return Arrays.stream(getSlotSchemas(slot))
+                .filter(itemSchemas::contains)
+                .filter(upgradeSchema -> upgradeSchema.isApplicableForSlot(slot, itemStack))
+                .filter(upgradeSchema -> upgradeSchema.isApplicableForItem(itemStack))
+                .filter(upgradeSchema -> visibility.isVisible(itemStack, upgradeSchema))
+                .toArray(UpgradeSchema[]::new);
+    }
+
+    private Set<UpgradeSchema> getSchemas(Item item) {
+        return schemasByItem.computeIfAbsent(item, key -> schemaMap.values().stream()
+                .filter(upgradeSchema -> upgradeSchema.isApplicableForItemType(key))
+                .collect(Collectors.collectingAndThen(Collectors.toCollection(LinkedHashSet::new), Collections::unmodifiableSet)));
+    }
+
+    /**
+     * @return schemas that are applicable for the given slot regardless of the item, e.g. excluding schemas that only apply
+     * to slots holding a module
+     */
     public UpgradeSchema[] getSchemas(String slot) {
-        return schemaMap.values().stream()
+        return Arrays.stream(getSlotSchemas(slot))
                 .filter(upgradeSchema -> upgradeSchema.isApplicableForSlot(slot, ItemStack.EMPTY))
                 .toArray(UpgradeSchema[]::new);
     }
 
+    private UpgradeSchema[] getSlotSchemas(String slot) {
+        if (slot == null) {
+            return schemaMap.values().stream()
+                    .filter(upgradeSchema -> upgradeSchema.isApplicableForSlotType(null))
+                    .toArray(UpgradeSchema[]::new);
+        }
+
+        return schemasBySlot.computeIfAbsent(slot, key -> schemaMap.values().stream()
+                .filter(upgradeSchema -> upgradeSchema.isApplicableForSlotType(key))
+                .toArray(UpgradeSchema[]::new));
+    }
+
     public UpgradeSchema getSchema(String key) {
         return schemaMap.get(key);
     }
 
     public boolean playerHasSchema(PlayerEntity player, ItemStack targetStack, UpgradeSchema schema) {
-        return schema.isVisibleForPlayer(player, targetStack);
+        return PlayerSchemaVisibility.get(player).isVisible(targetStack, schema);
     }
 
     public void registerSchema(UpgradeSchema upgradeSchema) {
         schemaMap.put(upgradeSchema.getKey(), upgradeSchema);
+        invalidateSchemaCaches();
     }
 
-    private void registerConfigSchema(SchemaDefinition definition, ConfigSchema schema) {
-        registerSchema(schema);
+    /**
+     * Drops everything derived from the set of registered schemas, schemas registered from data files are registered in
+     * bulk and only invalidate once the whole change set has been applied.
+     */
+    private void invalidateSchemaCaches() {
+        schemasByItem.clear();
+        schemasBySlot.clear();
+        PlayerSchemaVisibility.invalidateAll();
+        OutcomePreviewService.invalidateAll();
+    }
+
+    private void registerConfigSchemas(ResourceLocation location, SchemaDefinition[] definitions) {
+        for (SchemaDefinition definition : definitions) {
+            if (definition.slots.length == definition.keySuffixes.length) {
+                for (int i = 0; i < definition.slots.length; i++) {
+                    try {
+                        registerConfigSchema(location, definition,
+                                new ConfigSchema(definition, definition.keySuffixes[i], definition.slots[i]));
+                    } catch (InvalidSchemaException e) {
+                        e.printMessage();
+                    }
+                }
+            } else {
+                try {
+                    registerConfigSchema(location, definition, new ConfigSchema(definition));
+                } catch (InvalidSchemaException e) {
+                    e.printMessage();
+                }
+            }
+        }
+    }
+
+    private void registerConfigSchema(ResourceLocation location, SchemaDefinition definition, ConfigSchema schema) {
+        schemaMap.put(schema.getKey(), schema);
+        schemasByFile.computeIfAbsent(location, key -> new ArrayList<>()).add(schema);
 
         if (definition.repair) {
             for (OutcomeDefinition outcomeDefinition: definition.outcomes) {
                 if (RepairDefinition.validateOutcome(outcomeDefinition)) {
-                    registerRepairDefinition(new RepairDefinition(outcomeDefinition));
+                    RepairDefinition repairDefinition = new RepairDefinition(outcomeDefinition);
+                    registerRepairDefinition(repairDefinition);
+                    repairDefinitionsByFile.computeIfAbsent(location, key -> new ArrayList<>()).add(repairDefinition);
                 }
             }
         }
     }
 
+    /**
+     * Unregisters the schemas and repair definitions that were registered from the schema data file at the given location,
+     * unless they have since been replaced by schemas from another file.
+     */
+    private void unregisterConfigSchemas(ResourceLocation location) {
+        Optional.ofNullable(schemasByFile.remove(location))
+                .ifPresent(schemas -> schemas.forEach(schema -> schemaMap.remove(schema.getKey(), schema)));
+        Optional.ofNullable(repairDefinitionsByFile.remove(location))
+                .ifPresent(definitions -> definitions.forEach(definition -> repairMap.remove(definition.moduleVariant, definition)));
+    }
+
     public void registerRepairDefinition(RepairDefinition definition) {
         repairMap.put(definition.moduleVariant, definition);
     }
@@ -119,9 +316,57 @@ public class ItemUpgradeRegistry {
         replacementFunctions.add(replacementFunction);
     }
 
+    /**
+     * Resolves the item that each replacement predicate is restricted to, if any, by inspecting the serialized form of the
+     * predicate. Predicates of other types than the vanilla item predicate may match anything and are always tested.
+     */
+    private void indexReplacements() {
+        Map<ReplacementDefinition, Item> items = new HashMap<>();
+        Set<ReplacementDefinition> itemOnly = new HashSet<>();
+
+        for (ReplacementDefinition definition : replacementDefinitions) {
+            if (definition.predicate.getClass() != ItemPredicate.class) {
+                continue;
+            }
+
+            try {
+                JsonElement json = definition.predicate.serialize();
+                if (json.isJsonObject() && json.getAsJsonObject().has("item")) {
+                    JsonObject jsonObject = json.getAsJsonObject();
+                    Item item = ForgeRegistries.ITEMS.getValue(new ResourceLocation(jsonObject.get("item").getAsString()));
+                    if (item != null) {
+                        items.put(definition, item);
+
+                        if (jsonObject.entrySet().stream()
+                                .filter(entry -> !entry.getKey().equals("item"))
+                                .map(Map.Entry::getValue)
+                                .allMatch(value -> value.isJsonNull() || value.isJsonArray() && value.getAsJsonArray().size() == 0)) {
+                            itemOnly.add(definition);
+                        }
+                    }
+                }
+            } catch (Exception e) {
+                logger.debug("Unable to index replacement predicate, it will be tested for all items", e);
+            }
+        }
+
+        replacementItems = items;
+        itemOnlyReplacements = itemOnly;
+        replacementCandidates = new ConcurrentHashMap<>();
+    }
+
+    private ReplacementDefinition[] getReplacementCandidates(Item item) {
+        return replacementCandidates.computeIfAbsent(item, key -> replacementDefinitions.stream()
+                .filter(definition -> {
+                    Item definitionItem = replacementItems.get(definition);
+                    return definitionItem == null || definitionItem == key;
+                })
+                .toArray(ReplacementDefinition[]::new));
+    }
+
     public ItemStack getReplacement(ItemStack itemStack) {
-        for (ReplacementDefinition replacementDefinition: replacementDefinitions) {
-            if (replacementDefinition.predicate.test(itemStack)) {
+        for (ReplacementDefinition replacementDefinition: getReplacementCandidates(itemStack.getItem())) {
+            if (itemOnlyReplacements.contains(replacementDefinition) || replacementDefinition.predicate.test(itemStack)) {
                 ItemStack replacementStack = replacementDefinition.itemStack.copy();
                 replacementStack.setDamage(itemStack.getDamage());
                 transferEnchantments(itemStack, replacementStack);
@@ -167,32 +412,92 @@ public class ItemUpgradeRegistry {
         }
     }
 
-    public EnchantmentMapping[] getEnchantmentMappings(String improvement) {
-        return DataManager.enchantmentData.getData().values().stream()
-                .flatMap(Arrays::stream)
-                .filter(mapping -> mapping.enchantment != null)
-                .filter(mapping -> improvement.equals(mapping.improvement))
-                .filter(mapping -> mapping.apply)
-                .toArray(EnchantmentMapping[]::new);
+    /**
+     * @param improvement An improvement key
+     * @return mappings for enchantments that should be applied to items that have the given improvement
+     */
+    public ImmutableList<EnchantmentMapping> getEnchantmentMappings(String improvement) {
+        return applyMappings.get(improvement);
     }
 
-    public EnchantmentMapping[] getEnchantmentMappings(Enchantment enchantment) {
-        return DataManager.enchantmentData.getData().values().stream()
-                .flatMap(Arrays::stream)
-                .filter(mapping -> mapping.enchantment != null)
-                .filter(mapping -> enchantment.equals(mapping.enchantment))
-                .filter(mapping -> mapping.extract)
-                .toArray(EnchantmentMapping[]::new);
+    /**
+     * @param enchantment An enchantment
+     * @return mappings for improvements that the given enchantment should be extracted into
+     */
+    public ImmutableList<EnchantmentMapping> getEnchantmentMappings(Enchantment enchantment) {
+        return extractMappings.get(enchantment);
     }
 
     public void registerModule(String key, ItemModule module) {
         moduleMap.put(key, module);
+
+        Integer id = moduleIds.get(key);
+        if (id != null) {
+            modulesById.set(id, module);
+        } else {
+            moduleIds.put(key, modulesById.size());
+            modulesById.add(module);
+        }
     }
 
     public ItemModule getModule(String key) {
         return moduleMap.get(key);
     }
 
+    /**
+     * @param id A module id
+     * @return the module with the given id, or null if there is no such module
+     */
+    public ItemModule getModule(int id) {
+        if (id >= 0 && id < modulesById.size()) {
+            return modulesById.get(id);
+        }
+        return null;
+    }
+
+    /**
+     * Module ids are dense and stable for the lifetime of the game, as modules are only registered during startup.
+     * @param key A module key
+     * @return the id of the module with the given key, or -1 if no module with that key is registered
+     */
+    public int getModuleId(String key) {
+        return moduleIds.getOrDefault(key, -1);
+    }
+
+    /**
+     * Variant ids may be reassigned when module data is reloaded, so they should not be persisted or cached across reloads.
+     * @param variantKey A module variant key
+     * @return the id of the variant with the given key, or -1 if there is no variant with that key
+     */
+    public int getVariantId(String variantKey) {
+        return variantIds.getOrDefault(variantKey, -1);
+    }
+
+    /**
+     * @param id A module variant id
+     * @return the key of the variant with the given id, or null if there is no such variant
+     */
+    public String getVariantKey(int id) {
+        if (id >= 0 && id < variantKeys.length) {
+            return variantKeys[id];
+        }
+        return null;
+    }
+
+    /**
+     * @return the number of variant ids currently assigned, all variant ids are lower than this value
+     */
+    public int getVariantCount() {
+        return variantKeys.length;
+    }
+
+    /**
+     * @return a number that changes every time variant ids are reassigned, ids from different generations are unrelated
+     */
+    public int getVariantIdGeneration() {
+        return variantIdGeneration;
+    }
+
     public Collection<ItemModule> getAllModules() {
 	    return moduleMap.values();
     }
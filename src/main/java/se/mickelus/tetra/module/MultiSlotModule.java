@@ -8,7 +8,9 @@ import se.mickelus.tetra.module.data.ImprovementData;
 import se.mickelus.tetra.module.data.ModuleData;
 
 import java.util.Arrays;
+import java.util.List;
 import java.util.Objects;
+import java.util.stream.Collectors;
 
 public class MultiSlotModule extends ItemModuleMajor {
 
@@ -26,10 +28,22 @@ public class MultiSlotModule extends ItemModuleMajor {
         this.dataKey = moduleKey + slotSuffix + "_material";
 
         // this uses the unsuffixed module key, to use the same data for both sides
-        DataManager.moduleData.onReload(() -> data = DataManager.moduleData.getData(new ResourceLocation(TetraMod.MOD_ID, moduleKey)));
+        ResourceLocation dataLocation = new ResourceLocation(TetraMod.MOD_ID, moduleKey);
+        DataManager.moduleData.onChange(changes -> {
+            if (changes.affects(dataLocation)) {
+                setData(DataManager.moduleData.getData(dataLocation));
+            }
+        });
 
         if (improvementKeys.length > 0) {
-            DataManager.improvementData.onReload(() -> {
+            List<ResourceLocation> improvementLocations = Arrays.stream(improvementKeys)
+                    .map(key -> new ResourceLocation(TetraMod.MOD_ID, key))
+                    .collect(Collectors.toList());
+            DataManager.improvementData.onChange(changes -> {
+                if (!changes.affectsAny(improvementLocations)) {
+                    return;
+                }
+
                 improvements = Arrays.stream(improvementKeys)
                         .map(key -> DataManager.improvementData.getData(new ResourceLocation(TetraMod.MOD_ID, key)))
                         .filter(Objects::nonNull)
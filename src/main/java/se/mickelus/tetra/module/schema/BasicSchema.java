@@ -58,6 +58,16 @@ public abstract class BasicSchema extends BaseSchema {
         return item.equals(itemStack.getItem());
     }
 
+    @Override
+    public boolean isApplicableForItemType(Item item) {
+        return this.item.equals(item);
+    }
+
+    @Override
+    public boolean isApplicableForSlotType(String slot) {
+        return module.getSlot().equals(slot);
+    }
+
     @Override
     public boolean isApplicableForSlot(String slot, ItemStack targetStack) {
         return module.getSlot().equals(slot);
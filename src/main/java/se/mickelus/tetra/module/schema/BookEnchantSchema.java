@@ -6,6 +6,7 @@ import net.minecraft.enchantment.EnchantmentHelper;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.item.EnchantedBookItem;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import se.mickelus.tetra.advancements.ImprovementCraftCriterion;
 import se.mickelus.tetra.capabilities.Capability;
@@ -16,7 +17,6 @@ import se.mickelus.tetra.module.ItemUpgradeRegistry;
 import se.mickelus.tetra.module.data.GlyphData;
 import se.mickelus.tetra.module.data.EnchantmentMapping;
 
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
@@ -73,7 +73,7 @@ public class BookEnchantSchema implements UpgradeSchema {
         return !materialStack.isEmpty() && materialStack.getItem() instanceof EnchantedBookItem &&
                 EnchantmentHelper.getEnchantments(materialStack).entrySet().stream()
                 .anyMatch(entry -> {
-                    return Arrays.stream(ItemUpgradeRegistry.instance.getEnchantmentMappings(entry.getKey()))
+                    return ItemUpgradeRegistry.instance.getEnchantmentMappings(entry.getKey()).stream()
                             .anyMatch(mapping ->
                                     module.acceptsImprovementLevel(mapping.improvement, (int) (entry.getValue() / mapping.multiplier)));
                 });
@@ -93,6 +93,16 @@ public class BookEnchantSchema implements UpgradeSchema {
         return false;
     }
 
+    @Override
+    public boolean isApplicableForItemType(Item item) {
+        return item instanceof ItemModular;
+    }
+
+    @Override
+    public boolean isApplicableForSlotType(String slot) {
+        return module.getSlot().equals(slot);
+    }
+
     @Override
     public boolean isApplicableForSlot(String slot, ItemStack targetStack) {
         return module.getSlot().equals(slot);
@@ -1,9 +1,13 @@
 package se.mickelus.tetra.module.schema;
 
+import com.google.gson.JsonElement;
 import net.minecraft.client.resources.I18n;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.registries.ForgeRegistries;
 import se.mickelus.tetra.ConfigHandler;
 import se.mickelus.tetra.advancements.ImprovementCraftCriterion;
 import se.mickelus.tetra.advancements.ModuleCraftCriterion;
@@ -32,6 +36,9 @@ public class ConfigSchema extends BaseSchema {
     private String keySuffix;
     private String moduleSlot;
 
+    // the item that the requirement is limited to, null if the requirement may match stacks of several items
+    private Item requiredItem;
+
     public ConfigSchema(SchemaDefinition definition) throws InvalidSchemaException {
         this(definition, "", null);
     }
@@ -40,6 +47,7 @@ public class ConfigSchema extends BaseSchema {
         this.definition = definition;
         this.keySuffix = keySuffix;
         this.moduleSlot = moduleSlot;
+        this.requiredItem = getRequiredItem(definition);
 
         String[] faultyModuleOutcomes = Arrays.stream(definition.outcomes)
                 .map(this::getModuleKey)
@@ -52,6 +60,23 @@ public class ConfigSchema extends BaseSchema {
         }
     }
 
+    /**
+     * Item predicates do not expose their item, but it's included when the predicate is serialized. Custom predicates
+     * serialize without an item and are treated as matching any item.
+     */
+    private static Item getRequiredItem(SchemaDefinition definition) {
+        if (definition.requirement == null) {
+            return null;
+        }
+
+        JsonElement json = definition.requirement.serialize();
+        if (json.isJsonObject() && json.getAsJsonObject().has("item")) {
+            return ForgeRegistries.ITEMS.getValue(new ResourceLocation(json.getAsJsonObject().get("item").getAsString()));
+        }
+
+        return null;
+    }
+
     private String getModuleKey(OutcomeDefinition outcome) {
         if (outcome.moduleKey != null) {
             return outcome.moduleKey + keySuffix;
@@ -144,6 +169,16 @@ public class ConfigSchema extends BaseSchema {
         return definition.requirement.test(itemStack);
     }
 
+    @Override
+    public boolean isApplicableForItemType(Item item) {
+        return requiredItem == null || requiredItem.equals(item);
+    }
+
+    @Override
+    public boolean isApplicableForSlotType(String slot) {
+        return isApplicableForSlot(slot, ItemStack.EMPTY);
+    }
+
     @Override
     public boolean isApplicableForSlot(String slot, ItemStack targetStack) {
         if (moduleSlot != null) {
@@ -360,6 +395,7 @@ public class ConfigSchema extends BaseSchema {
 
     @Override
     public OutcomePreview[] getPreviews(ItemStack targetStack, String slot) {
+        ItemStack baseStack = targetStack.copy();
         return Arrays.stream(definition.outcomes)
                 .map(outcome -> {
                     String key = null;
@@ -384,11 +420,11 @@ public class ConfigSchema extends BaseSchema {
                         }
                     }
 
-                    ItemStack itemStack = targetStack.copy();
-                    applyOutcome(outcome, itemStack, false, slot, null);
-
-                    return new OutcomePreview(key, glyph, itemStack, definition.displayType, outcome.requiredCapabilities,
-                            outcome.material.getApplicableItemstacks());
+                    return new OutcomePreview(key, glyph, () -> {
+                        ItemStack itemStack = baseStack.copy();
+                        applyOutcome(outcome, itemStack, false, slot, null);
+                        return itemStack;
+                    }, definition.displayType, outcome.requiredCapabilities, outcome.material.getApplicableItemstacks());
                 })
                 .filter(Filter.distinct(preview -> preview.key))
                 .toArray(OutcomePreview[]::new);
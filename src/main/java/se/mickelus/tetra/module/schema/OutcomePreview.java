@@ -4,10 +4,16 @@ import net.minecraft.item.ItemStack;
 import se.mickelus.tetra.module.data.CapabilityData;
 import se.mickelus.tetra.module.data.GlyphData;
 
+import java.util.function.Supplier;
+
 public class OutcomePreview {
     public String key;
     public GlyphData glyph;
-    public ItemStack itemStack;
+
+    // the preview stack is built the first time it's requested, most previews are never looked at. Guis have stacks built
+    // off thread through OutcomePreviewService.prepareItemStacks
+    private volatile ItemStack itemStack;
+    private Supplier<ItemStack> itemStackSupplier;
 
     public SchemaType type;
 
@@ -15,11 +21,32 @@ public class OutcomePreview {
     public ItemStack[] materials;
 
     public OutcomePreview(String key, GlyphData glyph, ItemStack itemStack, SchemaType type, CapabilityData capabilities, ItemStack[] materials) {
+        this(key, glyph, () -> itemStack, type, capabilities, materials);
+    }
+
+    public OutcomePreview(String key, GlyphData glyph, Supplier<ItemStack> itemStackSupplier, SchemaType type,
+            CapabilityData capabilities, ItemStack[] materials) {
         this.key = key;
         this.glyph = glyph;
-        this.itemStack = itemStack;
+        this.itemStackSupplier = itemStackSupplier;
         this.type = type;
         this.capabilities = capabilities;
         this.materials = materials;
     }
+
+    /**
+     * @return true if the preview stack has been built, getItemStack will not block or do any work if this returns true
+     */
+    public boolean isItemStackBuilt() {
+        return itemStack != null;
+    }
+
+    public synchronized ItemStack getItemStack() {
+        if (itemStack == null) {
+            itemStack = itemStackSupplier.get();
+            itemStackSupplier = null;
+        }
+
+        return itemStack;
+    }
 }
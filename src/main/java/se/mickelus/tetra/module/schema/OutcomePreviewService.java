@@ -0,0 +1,109 @@
+package se.mickelus.tetra.module.schema;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import net.minecraft.item.ItemStack;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import se.mickelus.tetra.items.ItemModularView;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Computes outcome previews for schemas off the client thread. Building previews applies every outcome of a schema to a copy
+ * of the target, which adds up for schemas with a lot of material variants. Previews are cached per schema, slot and target
+ * configuration so that reopening a schema is instant, the least recently used previews are dropped first.
+ */
+public class OutcomePreviewService {
+    private static final Logger logger = LogManager.getLogger();
+
+    private static final OutcomePreview[] noPreviews = new OutcomePreview[0];
+
+    private static final ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+            .setNameFormat("tetra-preview-%d")
+            .setDaemon(true)
+            .build());
+
+    private static final Cache<List<Object>, CompletableFuture<OutcomePreview[]>> cache = CacheBuilder.newBuilder()
+            .maximumSize(64)
+            .build();
+
+    /**
+     * Returns previews for all outcomes of the given schema, computing them on a worker thread if they are not already
+     * cached. The returned previews are shared and should not be modified.
+     *
+     * @param schema The schema to preview
+     * @param targetStack The itemstack the schema would be applied to, copied before the previews are computed
+     * @param slot The slot the schema would be applied to
+     * @return a future that completes with the previews, or with an empty array if previews could not be computed
+     */
+    public static CompletableFuture<OutcomePreview[]> getPreviews(UpgradeSchema schema, ItemStack targetStack, String slot) {
+        ItemStack itemStack = targetStack.copy();
+        List<Object> key = getKey(schema, itemStack, slot);
+
+        try {
+            return cache.get(key, () -> CompletableFuture.supplyAsync(() -> {
+                try {
+                    return schema.getPreviews(itemStack, slot);
+                } catch (Exception e) {
+                    logger.warn("Failed to compute previews for schema " + schema.getKey(), e);
+                    cache.invalidate(key);
+                    return noPreviews;
+                }
+            }, executor));
+        } catch (ExecutionException e) {
+            return CompletableFuture.completedFuture(noPreviews);
+        }
+    }
+
+    /**
+     * Builds the stacks of the given previews on the worker thread, guis call this for previews as they are shown so that the
+     * stacks are ready by the time a preview is hovered or selected. Null previews and previews that already have their stack
+     * built are skipped.
+     */
+    public static void prepareItemStacks(OutcomePreview ... previews) {
+        OutcomePreview[] pending = Arrays.stream(previews)
+                .filter(Objects::nonNull)
+                .filter(preview -> !preview.isItemStackBuilt())
+                .toArray(OutcomePreview[]::new);
+
+        if (pending.length > 0) {
+            executor.execute(() -> {
+                for (OutcomePreview preview : pending) {
+                    try {
+                        preview.getItemStack();
+                    } catch (Exception e) {
+                        logger.warn("Failed to build preview stack for " + preview.key, e);
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Drops all cached previews, has to be called when schemas or the data that outcomes depend upon are reloaded.
+     */
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * Previews depend on the configuration of the target rather than the stack itself, modular targets are keyed on their
+     * configuration while other items are keyed on the item and tag.
+     */
+    private static List<Object> getKey(UpgradeSchema schema, ItemStack targetStack, String slot) {
+        ItemModularView view = ItemModularView.get(targetStack);
+        if (view != null) {
+            return Arrays.asList(schema.getKey(), slot, view.getConfiguration());
+        }
+
+        return Arrays.asList(schema.getKey(), slot, targetStack.getItem(), targetStack.getTag());
+    }
+}
@@ -0,0 +1,101 @@
+package se.mickelus.tetra.module.schema;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
+import net.minecraft.item.ItemStack;
+import net.minecraft.nbt.CompoundNBT;
+import net.minecraft.util.NonNullList;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Tracks which schemas have been revealed to a player by materials in their inventory. Config schemas with a material reveal
+ * slot scan the full inventory of the player to decide if they are visible, this memoizes the result per schema and drops
+ * it whenever a slot in the main inventory of the player changes.
+ */
+public class PlayerSchemaVisibility {
+
+    private static final Cache<PlayerEntity, PlayerSchemaVisibility> cache = CacheBuilder.newBuilder()
+            .weakKeys()
+            .build();
+
+    private final PlayerEntity player;
+
+    // snapshot of the main inventory, taken when the memoized results were last known to be valid
+    private ItemStack[] stacks = new ItemStack[0];
+    private Item[] items = new Item[0];
+    private int[] counts = new int[0];
+    private CompoundNBT[] tags = new CompoundNBT[0];
+
+    private final Map<UpgradeSchema, Boolean> visible = new IdentityHashMap<>();
+
+    private PlayerSchemaVisibility(PlayerEntity player) {
+        this.player = player;
+    }
+
+    /**
+     * Returns the visibility tracker for the given player, dropping memoized results if the main inventory of the player has
+     * changed since they were computed. Callers checking several schemas should get the tracker once and reuse it for all
+     * checks, rather than comparing the inventory snapshot for every schema.
+     */
+    public static PlayerSchemaVisibility get(PlayerEntity player) {
+        PlayerSchemaVisibility visibility = cache.getIfPresent(player);
+        if (visibility == null) {
+            visibility = new PlayerSchemaVisibility(player);
+            cache.put(player, visibility);
+        }
+
+        visibility.update();
+        return visibility;
+    }
+
+    /**
+     * Checks if the given schema is visible for the player, as per UpgradeSchema.isVisibleForPlayer. Only the visibility of
+     * config schemas is memoized as it does not depend on the target stack, other schemas are checked on every call.
+     */
+    public boolean isVisible(ItemStack targetStack, UpgradeSchema schema) {
+        if (!(schema instanceof ConfigSchema)) {
+            return schema.isVisibleForPlayer(player, targetStack);
+        }
+
+        return visible.computeIfAbsent(schema, key -> key.isVisibleForPlayer(player, targetStack));
+    }
+
+    /**
+     * Drops all memoized visibility, should be called when schemas are registered or replaced.
+     */
+    public static void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private void update() {
+        NonNullList<ItemStack> inventory = player.inventory.mainInventory;
+
+        if (stacks.length != inventory.size()) {
+            stacks = new ItemStack[inventory.size()];
+            items = new Item[inventory.size()];
+            counts = new int[inventory.size()];
+            tags = new CompoundNBT[inventory.size()];
+        }
+
+        boolean changed = false;
+        for (int i = 0; i < inventory.size(); i++) {
+            ItemStack itemStack = inventory.get(i);
+            if (stacks[i] != itemStack || items[i] != itemStack.getItem() || counts[i] != itemStack.getCount()
+                    || tags[i] != itemStack.getTag()) {
+                stacks[i] = itemStack;
+                items[i] = itemStack.getItem();
+                counts[i] = itemStack.getCount();
+                tags[i] = itemStack.getTag();
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            visible.clear();
+        }
+    }
+}
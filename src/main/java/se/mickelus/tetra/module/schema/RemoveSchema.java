@@ -2,6 +2,7 @@ package se.mickelus.tetra.module.schema;
 
 import net.minecraft.client.resources.I18n;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import se.mickelus.tetra.ConfigHandler;
 import se.mickelus.tetra.capabilities.Capability;
@@ -81,6 +82,16 @@ public class RemoveSchema extends BaseSchema {
         return item.getClass().isInstance(itemStack.getItem());
     }
 
+    @Override
+    public boolean isApplicableForItemType(Item item) {
+        return this.item.getClass().isInstance(item);
+    }
+
+    @Override
+    public boolean isApplicableForSlotType(String slot) {
+        return this.slot.equals(slot);
+    }
+
     @Override
     public boolean isApplicableForSlot(String slot, ItemStack targetStack) {
         return this.slot.equals(slot) && item.getModuleFromSlot(targetStack, this.slot) != null;
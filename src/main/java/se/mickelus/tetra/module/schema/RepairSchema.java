@@ -2,6 +2,7 @@ package se.mickelus.tetra.module.schema;
 
 import net.minecraft.client.resources.I18n;
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import se.mickelus.tetra.capabilities.Capability;
 import se.mickelus.tetra.gui.GuiTextures;
@@ -96,6 +97,16 @@ public class RepairSchema extends BaseSchema {
         return item.getClass().isInstance(itemStack.getItem());
     }
 
+    @Override
+    public boolean isApplicableForItemType(Item item) {
+        return this.item.getClass().isInstance(item);
+    }
+
+    @Override
+    public boolean isApplicableForSlotType(String slot) {
+        return slot == null;
+    }
+
     @Override
     public boolean isApplicableForSlot(String slot, ItemStack targetStack) {
         return slot == null;
@@ -1,6 +1,7 @@
 package se.mickelus.tetra.module.schema;
 
 import net.minecraft.entity.player.PlayerEntity;
+import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import se.mickelus.tetra.capabilities.Capability;
 import se.mickelus.tetra.module.data.GlyphData;
@@ -44,6 +45,17 @@ public interface UpgradeSchema {
      */
     public boolean isApplicableForItem(ItemStack itemStack);
 
+    /**
+     * Returns false if this upgrade can never be applied to stacks of the given item, regardless of their modules or other
+     * data. Used to index schemas by item, so it should be cheap and must not return false for any item that
+     * isApplicableForItem could return true for.
+     * @param item the item of stacks that are to be upgraded
+     * @return
+     */
+    public default boolean isApplicableForItemType(Item item) {
+        return true;
+    }
+
     /**
      * Returns true if this upgrade can be applied to the given slot on the given item.
      * @param slot the slot on which the schema will be applied
@@ -52,6 +64,16 @@ public interface UpgradeSchema {
      */
     public boolean isApplicableForSlot(String slot, ItemStack itemStack);
 
+    /**
+     * Returns false if this upgrade can never be applied to the given slot, regardless of the item. Used to index schemas by
+     * slot, so it should be cheap and must not return false for any slot that isApplicableForSlot could return true for.
+     * @param slot the slot on which the schema will be applied
+     * @return
+     */
+    public default boolean isApplicableForSlotType(String slot) {
+        return true;
+    }
+
     /**
      * This is a final check if the player should be able to see the schema in schema listings, based on the player or it's surroundings.
      * @param player The player
@@ -18,7 +18,7 @@ import java.util.function.Supplier;
  * of sirgingalot
  */
 public class PacketHandler {
-    private static final String PROTOCOL_VERSION = "1";
+    private static final String PROTOCOL_VERSION = "2";
     public static final SimpleChannel channel = NetworkRegistry.newSimpleChannel(
             new ResourceLocation(TetraMod.MOD_ID, "main"),
             () -> PROTOCOL_VERSION,
@@ -1,11 +1,20 @@
 package se.mickelus.tetra.proxy;
 
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.IReloadableResourceManager;
+import net.minecraft.resources.IResourceManagerReloadListener;
+import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
 import net.minecraftforge.client.event.ModelRegistryEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 import net.minecraftforge.fml.event.lifecycle.FMLCommonSetupEvent;
 import se.mickelus.tetra.ConfigHandler;
 import se.mickelus.tetra.blocks.ITetraBlock;
+import se.mickelus.tetra.client.RenderStatisticsCommand;
+import se.mickelus.tetra.client.RenderStatisticsOverlay;
+import se.mickelus.tetra.data.DataManager;
 import se.mickelus.tetra.items.ITetraItem;
+import se.mickelus.tetra.items.ItemDisplayText;
 
 import java.util.Arrays;
 
@@ -13,6 +22,9 @@ public class ClientProxy implements IProxy {
 
     @Override
     public void preInit(ITetraItem[] items, ITetraBlock[] blocks) {
+        // cached item names and tooltips are localized, language changes also trigger a resource reload
+        ((IReloadableResourceManager) Minecraft.getInstance().getResourceManager())
+                .addReloadListener((IResourceManagerReloadListener) resourceManager -> ItemDisplayText.invalidateAll());
     }
 
     @Override
@@ -32,11 +44,18 @@ public class ClientProxy implements IProxy {
 
     @Override
     public void postInit() {
+        MinecraftForge.EVENT_BUS.register(new RenderStatisticsOverlay());
+        MinecraftForge.EVENT_BUS.register(new RenderStatisticsCommand());
 //        MinecraftForge.EVENT_BUS.register(new OverlayToolbelt(Minecraft.getInstance()));
 //        MinecraftForge.EVENT_BUS.register(new OverlayBooster(Minecraft.getInstance()));
 //        MinecraftForge.EVENT_BUS.register(new CapabililtyInteractiveOverlay());
     }
 
+    @SubscribeEvent
+    public void loggedOut(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+        DataManager.instance.onDisconnect();
+    }
+
     @SubscribeEvent
     public void registerModels(ModelRegistryEvent event) {
         if (ConfigHandler.generateFeatures.get()) {